@@ -0,0 +1,123 @@
+package org.eclipse.aether.internal.impl.collect;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.repository.RemoteRepository;
+
+/**
+ * Deterministic generator of realistic artifact coordinates for benchmarks. Group IDs follow a Zipf-like distribution
+ * (a few groups like {@code org.apache.maven} dominate real graphs), artifact IDs share group-specific prefixes and
+ * most artifacts have a few versions. Sequences drawn from a set of distinct artifacts repeat popular artifacts, as
+ * dependency graphs do.
+ */
+final class Coordinates
+{
+
+    private static final String[] GROUPS = {
+        "org.apache.maven", "org.apache.maven.plugins", "org.codehaus.plexus", "org.apache.maven.resolver",
+        "org.apache.commons", "commons-io", "com.google.guava", "org.slf4j", "com.fasterxml.jackson.core",
+        "org.apache.maven.shared", "org.eclipse.sisu", "javax.inject", "org.ow2.asm", "junit", "org.junit.jupiter",
+        "org.apache.httpcomponents", "org.springframework", "io.netty", "org.jboss.logging", "org.ops4j.pax.url"
+    };
+
+    private static final String[] NAMES = {
+        "core", "api", "util", "impl", "spi", "model", "builder", "utils", "common", "annotations", "plugin-api",
+        "compat", "transport", "connector", "provider", "settings", "artifact", "resolver", "interpolation", "archiver"
+    };
+
+    private static final String[] CLASSIFIERS = { "", "", "", "", "", "", "", "sources", "tests", "linux-x86_64" };
+
+    private static final String[] EXTENSIONS = { "jar", "jar", "jar", "jar", "jar", "pom", "pom", "war", "zip" };
+
+    private Coordinates()
+    {
+    }
+
+    /**
+     * Returns {@code count} distinct artifacts.
+     */
+    static List<Artifact> distinct( int count, long seed )
+    {
+        Random random = new Random( seed );
+        List<Artifact> artifacts = new ArrayList<>( count );
+        for ( int i = 0; i < count; i++ )
+        {
+            String group = GROUPS[zipf( random, GROUPS.length )];
+            String artifactId = group.substring( group.lastIndexOf( '.' ) + 1 ) + "-" + NAMES[random.nextInt(
+                NAMES.length )] + "-" + i;
+            String version = random.nextInt( 5 ) + "." + random.nextInt( 20 ) + "." + random.nextInt( 10 )
+                + ( random.nextInt( 20 ) == 0 ? "-SNAPSHOT" : "" );
+            artifacts.add( new DefaultArtifact( group, artifactId, CLASSIFIERS[random.nextInt( CLASSIFIERS.length )],
+                                                EXTENSIONS[random.nextInt( EXTENSIONS.length )], version ) );
+        }
+        return artifacts;
+    }
+
+    /**
+     * Returns {@code count} artifacts drawn (with repetition, popular ones more often) from {@code distinct}. Each
+     * returned artifact is a new instance equal to one of {@code distinct}, as read from another descriptor.
+     */
+    static List<Artifact> sequence( List<Artifact> distinct, int count, long seed )
+    {
+        Random random = new Random( seed );
+        List<Artifact> artifacts = new ArrayList<>( count );
+        for ( int i = 0; i < count; i++ )
+        {
+            artifacts.add( copy( distinct.get( zipf( random, distinct.size() ) ) ) );
+        }
+        return artifacts;
+    }
+
+    static Artifact copy( Artifact artifact )
+    {
+        return new DefaultArtifact( new String( artifact.getGroupId() ), new String( artifact.getArtifactId() ),
+                                    new String( artifact.getClassifier() ), new String( artifact.getExtension() ),
+                                    new String( artifact.getVersion() ) );
+    }
+
+    static List<RemoteRepository> repositories()
+    {
+        List<RemoteRepository> repositories = new ArrayList<>();
+        repositories.add( new RemoteRepository.Builder( "central", "default", "https://repo.maven.apache.org/maven2/" )
+                              .build() );
+        repositories.add( new RemoteRepository.Builder( "ops4j", "default", "https://oss.sonatype.org/content/repositories/ops4j-releases/" )
+                              .build() );
+        return Collections.unmodifiableList( repositories );
+    }
+
+    /**
+     * Index in {@code [0, n)} with roughly Zipf-distributed (s = 1) probability.
+     */
+    private static int zipf( Random random, int n )
+    {
+        // inverse of the continuous approximation of the harmonic CDF
+        double u = random.nextDouble();
+        int index = (int) Math.floor( Math.exp( u * Math.log( n + 1 ) ) ) - 1;
+        return Math.min( Math.max( index, 0 ), n - 1 );
+    }
+
+}
@@ -0,0 +1,184 @@
+package org.eclipse.aether.internal.impl.collect;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.aether.DefaultRepositoryCache;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.collection.DependencyManager;
+import org.eclipse.aether.collection.DependencySelector;
+import org.eclipse.aether.collection.DependencyTraverser;
+import org.eclipse.aether.graph.DefaultDependencyNode;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactDescriptorRequest;
+import org.eclipse.aether.resolution.ArtifactDescriptorResult;
+import org.eclipse.aether.resolution.VersionRangeRequest;
+import org.eclipse.aether.resolution.VersionRangeResult;
+import org.eclipse.aether.util.graph.manager.ClassicDependencyManager;
+import org.eclipse.aether.util.graph.selector.ScopeDependencySelector;
+import org.eclipse.aether.util.graph.traverser.FatArtifactTraverser;
+import org.eclipse.aether.util.version.GenericVersionScheme;
+import org.eclipse.aether.version.InvalidVersionSpecificationException;
+import org.eclipse.aether.version.VersionScheme;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link DataPool} descriptor, version constraint and children lookups, keyed by artifacts equal to (not the same as)
+ * the cached ones. Shared variants are the lookups used with {@code aether.dependencyCollector.reduceAllocations} -
+ * compare allocation rates with {@code -prof gc}.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class DataPoolBenchmark
+{
+
+    @Param( { "1000", "20000" } )
+    int distinct;
+
+    private DataPool pool;
+
+    private List<RemoteRepository> repositories;
+
+    private DependencySelector selector;
+
+    private DependencyManager manager;
+
+    private DependencyTraverser traverser;
+
+    private Artifact[] lookups;
+
+    private ArtifactDescriptorRequest[] descriptorRequests;
+
+    private VersionRangeRequest[] rangeRequests;
+
+    private int next;
+
+    @Setup
+    public void setup()
+        throws InvalidVersionSpecificationException
+    {
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession();
+        session.setCache( new DefaultRepositoryCache() );
+        pool = new DataPool( session );
+        repositories = Coordinates.repositories();
+        selector = new ScopeDependencySelector( "test", "provided" );
+        manager = new ClassicDependencyManager();
+        traverser = new FatArtifactTraverser();
+
+        VersionScheme scheme = new GenericVersionScheme();
+        List<Artifact> artifacts = Coordinates.distinct( distinct, 1L );
+        for ( int i = 0; i < artifacts.size(); i++ )
+        {
+            Artifact artifact = artifacts.get( i );
+
+            ArtifactDescriptorResult descriptor =
+                new ArtifactDescriptorResult( new ArtifactDescriptorRequest( artifact, repositories, "project" ) );
+            descriptor.setArtifact( artifact );
+            descriptor.setRepositories( repositories );
+            List<Dependency> dependencies = new ArrayList<>();
+            for ( int d = 0; d < 8; d++ )
+            {
+                dependencies.add( new Dependency( artifacts.get( ( i + d + 1 ) % artifacts.size() ), "compile" ) );
+            }
+            descriptor.setDependencies( dependencies );
+            pool.putDescriptor( pool.toKey( descriptor.getRequest() ), descriptor );
+
+            VersionRangeResult range =
+                new VersionRangeResult( new VersionRangeRequest( artifact, repositories, "project" ) );
+            range.setVersionConstraint( scheme.parseVersionConstraint( artifact.getVersion() ) );
+            range.addVersion( scheme.parseVersion( artifact.getVersion() ) );
+            pool.putConstraint( pool.toKey( range.getRequest() ), range );
+
+            Object graphKey = pool.toKey( artifact, repositories, selector, manager, traverser, null );
+            pool.putChildren( graphKey, Collections.<DependencyNode>singletonList(
+                new DefaultDependencyNode( new Dependency( artifact, "compile" ) ) ) );
+        }
+
+        lookups = Coordinates.sequence( artifacts, 4096, 2L ).toArray( new Artifact[0] );
+        descriptorRequests = new ArtifactDescriptorRequest[lookups.length];
+        rangeRequests = new VersionRangeRequest[lookups.length];
+        for ( int i = 0; i < lookups.length; i++ )
+        {
+            descriptorRequests[i] = new ArtifactDescriptorRequest( lookups[i], repositories, "project" );
+            rangeRequests[i] = new VersionRangeRequest( lookups[i], repositories, "project" );
+        }
+    }
+
+    private int next()
+    {
+        int i = next;
+        next = ( next + 1 ) % lookups.length;
+        return i;
+    }
+
+    @Benchmark
+    public ArtifactDescriptorResult getDescriptor()
+    {
+        ArtifactDescriptorRequest request = descriptorRequests[next()];
+        return pool.getDescriptor( pool.toKey( request ), request );
+    }
+
+    @Benchmark
+    public ArtifactDescriptorResult getSharedDescriptor()
+    {
+        return pool.getSharedDescriptor( lookups[next()] );
+    }
+
+    @Benchmark
+    public VersionRangeResult getConstraint()
+    {
+        VersionRangeRequest request = rangeRequests[next()];
+        return pool.getConstraint( pool.toKey( request ), request );
+    }
+
+    @Benchmark
+    public VersionRangeResult getSharedConstraint()
+    {
+        return pool.getSharedConstraint( pool.toKey( lookups[next()], repositories ) );
+    }
+
+    @Benchmark
+    public List<DependencyNode> getChildren()
+    {
+        return pool.getChildren( pool.toKey( lookups[next()], repositories, selector, manager, traverser, null ) );
+    }
+
+}
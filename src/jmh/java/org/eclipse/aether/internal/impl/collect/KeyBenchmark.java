@@ -0,0 +1,128 @@
+package org.eclipse.aether.internal.impl.collect;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.collection.DependencyManager;
+import org.eclipse.aether.collection.DependencySelector;
+import org.eclipse.aether.collection.DependencyTraverser;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.util.graph.manager.ClassicDependencyManager;
+import org.eclipse.aether.util.graph.selector.ScopeDependencySelector;
+import org.eclipse.aether.util.graph.traverser.FatArtifactTraverser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Construction (including hashing) and equality of {@link DataPool.GraphKey} and {@link DataPool.ConstraintKey}. Keys
+ * are compared with equal keys built from equal (not the same) artifacts and repository lists, as in cache lookups.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class KeyBenchmark
+{
+
+    private Artifact[] artifacts;
+
+    private Artifact[] copies;
+
+    private List<RemoteRepository> repositories;
+
+    private List<RemoteRepository> repositoriesCopy;
+
+    private DependencySelector selector;
+
+    private DependencyManager manager;
+
+    private DependencyTraverser traverser;
+
+    private int next;
+
+    @Setup
+    public void setup()
+    {
+        List<Artifact> distinct = Coordinates.distinct( 1000, 1L );
+        artifacts = Coordinates.sequence( distinct, 4096, 2L ).toArray( new Artifact[0] );
+        copies = new Artifact[artifacts.length];
+        for ( int i = 0; i < artifacts.length; i++ )
+        {
+            copies[i] = Coordinates.copy( artifacts[i] );
+        }
+        repositories = Coordinates.repositories();
+        repositoriesCopy = new ArrayList<>( Coordinates.repositories() );
+        selector = new ScopeDependencySelector( "test", "provided" );
+        manager = new ClassicDependencyManager();
+        traverser = new FatArtifactTraverser();
+    }
+
+    private int next()
+    {
+        int i = next;
+        next = ( next + 1 ) % artifacts.length;
+        return i;
+    }
+
+    @Benchmark
+    public int graphKeyHashCode()
+    {
+        return new DataPool.GraphKey( artifacts[next()], repositories, selector, manager, traverser, null ).hashCode();
+    }
+
+    @Benchmark
+    public boolean graphKeyEquals()
+    {
+        int i = next();
+        DataPool.GraphKey key1 = new DataPool.GraphKey( artifacts[i], repositories, selector, manager, traverser, null );
+        DataPool.GraphKey key2 =
+            new DataPool.GraphKey( copies[i], repositoriesCopy, selector, manager, traverser, null );
+        return key1.equals( key2 );
+    }
+
+    @Benchmark
+    public int constraintKeyHashCode()
+    {
+        return new DataPool.ConstraintKey( artifacts[next()], repositories ).hashCode();
+    }
+
+    @Benchmark
+    public boolean constraintKeyEquals()
+    {
+        int i = next();
+        return new DataPool.ConstraintKey( artifacts[i], repositories ).equals(
+            new DataPool.ConstraintKey( copies[i], repositoriesCopy ) );
+    }
+
+}
@@ -0,0 +1,100 @@
+package org.eclipse.aether.internal.impl.collect;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.DefaultDependencyNode;
+import org.eclipse.aether.graph.Dependency;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link NodeStack#find(Artifact)} (cycle detection) on stacks of typical and deep graphs. Most lookups don't find a
+ * cycle and scan the whole stack; artifacts from the same group differ only in artifact ID.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class NodeStackBenchmark
+{
+
+    @Param( { "8", "32", "128" } )
+    int depth;
+
+    private NodeStack stack;
+
+    private Artifact absent;
+
+    private Artifact sameGroup;
+
+    private Artifact bottom;
+
+    @Setup
+    public void setup()
+    {
+        List<Artifact> artifacts = Coordinates.distinct( depth, 1L );
+        stack = new NodeStack();
+        // the root of a collection has no artifact when collecting dependencies of a project
+        stack.push( new DefaultDependencyNode( (Dependency) null ) );
+        for ( Artifact artifact : artifacts )
+        {
+            stack.push( new DefaultDependencyNode( new Dependency( artifact, "compile" ) ) );
+        }
+        absent = new DefaultArtifact( "org.example", "absent", "jar", "1.0" );
+        Artifact top = artifacts.get( artifacts.size() - 1 );
+        sameGroup = new DefaultArtifact( top.getGroupId(), top.getArtifactId() + "-other", "jar", "1.0" );
+        bottom = Coordinates.copy( artifacts.get( 0 ) );
+    }
+
+    @Benchmark
+    public int findAbsent()
+    {
+        return stack.find( absent );
+    }
+
+    @Benchmark
+    public int findSameGroup()
+    {
+        return stack.find( sameGroup );
+    }
+
+    @Benchmark
+    public int findBottom()
+    {
+        return stack.find( bottom );
+    }
+
+}
@@ -0,0 +1,83 @@
+package org.eclipse.aether.internal.impl.collect;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link ObjectPool#intern(Object)} of artifacts equal to (mostly) already pooled ones.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class ObjectPoolBenchmark
+{
+
+    @Param( { "1000", "20000" } )
+    int distinct;
+
+    private ObjectPool<Artifact> pool;
+
+    // pooled instances are only weakly referenced by the pool
+    private List<Artifact> retained;
+
+    private Artifact[] lookups;
+
+    private int next;
+
+    @Setup
+    public void setup()
+    {
+        pool = new ObjectPool<>();
+        retained = new ArrayList<>( Coordinates.distinct( distinct, 1L ) );
+        for ( Artifact artifact : retained )
+        {
+            pool.intern( artifact );
+        }
+        lookups = Coordinates.sequence( retained, 4096, 2L ).toArray( new Artifact[0] );
+    }
+
+    @Benchmark
+    public Artifact intern()
+    {
+        Artifact artifact = lookups[next];
+        next = ( next + 1 ) % lookups.length;
+        return pool.intern( artifact );
+    }
+
+}
@@ -0,0 +1,113 @@
+package org.eclipse.aether.internal.impl.collect;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.resolution.VersionRangeRequest;
+import org.eclipse.aether.resolution.VersionRangeResult;
+import org.eclipse.aether.util.version.GenericVersionScheme;
+import org.eclipse.aether.version.InvalidVersionSpecificationException;
+import org.eclipse.aether.version.Version;
+import org.eclipse.aether.version.VersionScheme;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * {@link DefaultVersionFilterContext} as used by version filters: resetting for a range result, iterating all versions,
+ * removing some of them and reading the remaining ones.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class VersionFilterContextBenchmark
+{
+
+    @Param( { "1", "20", "300" } )
+    int versions;
+
+    private DefaultVersionFilterContext context;
+
+    private Dependency dependency;
+
+    private VersionRangeResult result;
+
+    @Setup
+    public void setup()
+        throws InvalidVersionSpecificationException
+    {
+        context = new DefaultVersionFilterContext( new DefaultRepositorySystemSession() );
+        DefaultArtifact artifact = new DefaultArtifact( "org.apache.maven", "maven-core", "jar", "[3.0,)" );
+        dependency = new Dependency( artifact, "compile" );
+        VersionScheme scheme = new GenericVersionScheme();
+        result = new VersionRangeResult( new VersionRangeRequest( artifact, Coordinates.repositories(), "project" ) );
+        result.setVersionConstraint( scheme.parseVersionConstraint( "[3.0,)" ) );
+        for ( int i = 0; i < versions; i++ )
+        {
+            result.addVersion( scheme.parseVersion( "3." + ( i / 10 ) + "." + ( i % 10 ) ) );
+        }
+    }
+
+    @Benchmark
+    public void iterate( Blackhole blackhole )
+    {
+        context.set( dependency, result );
+        for ( Version version : context )
+        {
+            blackhole.consume( version );
+        }
+    }
+
+    @Benchmark
+    public List<Version> removeAndGet()
+    {
+        context.set( dependency, result );
+        // e.g. a snapshot or highest-version filter dropping most versions
+        int i = 0;
+        for ( Iterator<Version> it = context.iterator(); it.hasNext(); i++ )
+        {
+            it.next();
+            if ( i % 4 != 0 )
+            {
+                it.remove();
+            }
+        }
+        return context.get();
+    }
+
+}
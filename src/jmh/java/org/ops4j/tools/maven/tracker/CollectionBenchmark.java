@@ -0,0 +1,272 @@
+/*
+ * Copyright 2022 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.tools.maven.tracker;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.aether.DefaultRepositoryCache;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositoryException;
+import org.eclipse.aether.RequestTrace;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.artifact.DefaultArtifactType;
+import org.eclipse.aether.collection.CollectRequest;
+import org.eclipse.aether.collection.CollectResult;
+import org.eclipse.aether.impl.DependencyCollector;
+import org.eclipse.aether.internal.impl.SimpleLocalRepositoryManagerFactory;
+import org.eclipse.aether.internal.impl.collect.CollectionMetrics;
+import org.eclipse.aether.internal.impl.collect.DefaultDependencyCollector;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.repository.LocalRepositoryManager;
+import org.eclipse.aether.util.artifact.DefaultArtifactTypeRegistry;
+import org.eclipse.aether.util.graph.manager.ClassicDependencyManager;
+import org.eclipse.aether.util.graph.selector.AndDependencySelector;
+import org.eclipse.aether.util.graph.selector.ExclusionDependencySelector;
+import org.eclipse.aether.util.graph.selector.OptionalDependencySelector;
+import org.eclipse.aether.util.graph.selector.ScopeDependencySelector;
+import org.eclipse.aether.util.graph.transformer.ChainedDependencyGraphTransformer;
+import org.eclipse.aether.util.graph.transformer.ConflictResolver;
+import org.eclipse.aether.util.graph.transformer.JavaScopeDeriver;
+import org.eclipse.aether.util.graph.transformer.JavaScopeSelector;
+import org.eclipse.aether.util.graph.transformer.NearestVersionSelector;
+import org.eclipse.aether.util.graph.transformer.SimpleOptionalitySelector;
+import org.eclipse.aether.util.graph.traverser.FatArtifactTraverser;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Collection of a {@link SyntheticRepository} graph, as Maven collects dependencies of a project: a new session (and
+ * repository cache) per operation, Maven's selector, manager, traverser and conflict resolver, and POMs looked up in a
+ * local repository.
+ *
+ * With {@code tracking=off}, the plain {@link DefaultDependencyCollector} collects with a simple local repository
+ * manager and no repository listener. With {@code tracking=on}, the {@link TrackingDependencyCollector}, the
+ * {@link TrackingLocalRepositoryManagerFactory.TrackingLocalRepositoryManager} (default configuration) and the
+ * {@link TrackingRepositoryListener} are used and the session is closed as {@link TrackingConfigurator} does.
+ *
+ * {@code reduceAllocations} switches the collector's allocation-reduced mode, so the {@code LARGE} shape (about 10k
+ * distinct artifacts) shows what the mode saves per node. As conflict resolution of big graphs allocates much more
+ * than their collection, {@code conflictResolution=false} leaves the graph untransformed to show the collection
+ * alone.
+ *
+ * Throughput and latency percentiles are reported by the two benchmark modes, allocation with {@code -prof gc} and
+ * per dependency node as the {@code bytesPerNode} secondary result. The local repository is recreated for each
+ * iteration, so trackers don't grow during the whole run.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CollectionBenchmark {
+
+    @Param({ "off", "on" })
+    String tracking;
+
+    @Param({ "DEEP", "WIDE", "BOM", "MIXED", "LARGE" })
+    String shape;
+
+    /** Value of {@code aether.dependencyCollector.reduceAllocations}. */
+    @Param({ "false", "true" })
+    String reduceAllocations = "false";
+
+    /** Whether the graph is transformed by the conflict resolver, which dominates allocation of big graphs. */
+    @Param({ "true", "false" })
+    String conflictResolution = "true";
+
+    private SyntheticRepository repository;
+    private DependencyCollector collector;
+    private File localRepository;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        repository = new SyntheticRepository(SyntheticRepository.Shape.valueOf(shape), 42L);
+        if ("on".equals(tracking)) {
+            collector = new TrackingDependencyCollector(repository, repository, repository);
+        } else {
+            collector = new DefaultDependencyCollector()
+                    .setRemoteRepositoryManager(repository)
+                    .setArtifactDescriptorReader(repository)
+                    .setVersionRangeResolver(repository);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void createLocalRepository() throws IOException {
+        localRepository = Files.createTempDirectory("synthetic-repository").toFile();
+        repository.materialize(localRepository);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteLocalRepository() throws IOException {
+        Files.walkFileTree(localRepository.toPath(), new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Bytes allocated by the benchmark thread per processed dependency node (the {@code gc.alloc.rate.norm} of
+     * {@code -prof gc} divided by the node count) and nodes per operation, averaged over the iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PerNode {
+
+        private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+        public double bytesPerNode;
+        public double nodesPerOp;
+
+        private long bytes;
+        private long nodes;
+        private long ops;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0L;
+            nodes = 0L;
+            ops = 0L;
+            bytesPerNode = 0d;
+            nodesPerOp = 0d;
+        }
+
+        long allocated() {
+            return THREADS instanceof com.sun.management.ThreadMXBean
+                    ? ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId())
+                    : 0L;
+        }
+
+        void record(long allocated, long processed) {
+            bytes += allocated;
+            nodes += processed;
+            ops++;
+            bytesPerNode = nodes == 0L ? 0d : bytes / (double) nodes;
+            nodesPerOp = nodes / (double) ops;
+        }
+    }
+
+    @Benchmark
+    public CollectResult collect(PerNode perNode) throws RepositoryException {
+        long allocated = perNode.allocated();
+        long nodes = CollectionMetrics.getNodes();
+        try {
+            return collect();
+        } finally {
+            perNode.record(perNode.allocated() - allocated, CollectionMetrics.getNodes() - nodes);
+        }
+    }
+
+    CollectResult collect() throws RepositoryException {
+        DefaultRepositorySystemSession session = session();
+        CollectRequest request = new CollectRequest();
+        request.setRootArtifact(new DefaultArtifact("org.synthetic", "project", "jar", "1.0"));
+        request.setDependencies(repository.getRootDependencies());
+        request.setManagedDependencies(repository.getManagedDependencies());
+        request.setRepositories(repository.getRepositories());
+        request.setRequestContext("project");
+        request.setTrace(RequestTrace.newChild(null, request));
+        try {
+            return collector.collectDependencies(session, request);
+        } finally {
+            if ("on".equals(tracking)) {
+                close(session);
+            }
+        }
+    }
+
+    private DefaultRepositorySystemSession session() {
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession();
+        session.setCache(new DefaultRepositoryCache());
+        session.setDependencySelector(new AndDependencySelector(new ScopeDependencySelector("test", "provided"),
+                new OptionalDependencySelector(), new ExclusionDependencySelector()));
+        session.setDependencyManager(new ClassicDependencyManager());
+        session.setDependencyTraverser(new FatArtifactTraverser());
+        if (Boolean.parseBoolean(conflictResolution)) {
+            session.setDependencyGraphTransformer(new ConflictResolver(new NearestVersionSelector(),
+                    new JavaScopeSelector(), new SimpleOptionalitySelector(), new JavaScopeDeriver()));
+        } else {
+            session.setDependencyGraphTransformer(new ChainedDependencyGraphTransformer());
+        }
+        DefaultArtifactTypeRegistry types = new DefaultArtifactTypeRegistry();
+        types.add(new DefaultArtifactType("pom"));
+        types.add(new DefaultArtifactType("jar", "jar", "", "java"));
+        session.setArtifactTypeRegistry(types);
+        session.setConfigProperty("aether.dependencyCollector.reduceAllocations", reduceAllocations);
+
+        LocalRepositoryManager lrm;
+        try {
+            lrm = new SimpleLocalRepositoryManagerFactory().newInstance(session,
+                    new LocalRepository(localRepository));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        if ("on".equals(tracking)) {
+            lrm = new TrackingLocalRepositoryManagerFactory.TrackingLocalRepositoryManager(lrm);
+            session.setRepositoryListener(new TrackingRepositoryListener());
+        }
+        session.setLocalRepositoryManager(lrm);
+        return session;
+    }
+
+    private static void close(DefaultRepositorySystemSession session) {
+        TrackingLocalRepositoryManagerFactory.TrackingLocalRepositoryManager lrm =
+                TrackingLocalRepositoryManagerFactory.TrackingLocalRepositoryManager.of(session);
+        // as TrackingConfigurator does when the session ends, indexes are only maintained when enabled
+        if (lrm.getUsageIndex() != null) {
+            try {
+                lrm.getUsageIndex().write(System.currentTimeMillis());
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        if (lrm.getReverseIndex() != null) {
+            lrm.getReverseIndex().close();
+        }
+    }
+
+}
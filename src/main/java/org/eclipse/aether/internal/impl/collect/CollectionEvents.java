@@ -0,0 +1,139 @@
+package org.eclipse.aether.internal.impl.collect;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * Java Flight Recorder events of dependency collection and tracking. The events are defined by
+ * {@code JfrCollectionEvents}, compiled for Java 11 ({@code src/main/java11}) and loaded only when the JVM supports
+ * JFR. Until a recording is running (and always on older JVMs), {@link #begin(int)} is a read of a volatile flag
+ * returning {@code null} and {@link #end(Object, Object, String)} is a {@code null} check, so call sites cost nothing
+ * measurable. While a {@link TraceRecorder} records, the events are also recorded as its spans.
+ *
+ * <pre>
+ * Object event = CollectionEvents.begin( CollectionEvents.DESCRIPTOR_READ );
+ * try
+ * {
+ *     ... read the descriptor ...
+ * }
+ * finally
+ * {
+ *     CollectionEvents.end( event, artifact, requestContext );
+ * }
+ * </pre>
+ *
+ * Events are ended in {@code finally} blocks, so failed reads and resolutions are recorded too.
+ */
+public abstract class CollectionEvents
+{
+
+    /** Whole {@code collectDependencies()} call. */
+    public static final int COLLECTION = 0;
+
+    /** Artifact descriptor read (not served from the {@link DataPool}). */
+    public static final int DESCRIPTOR_READ = 1;
+
+    /** Version range resolution (not served from the {@link DataPool}). */
+    public static final int VERSION_RANGE = 2;
+
+    /** Dependency graph transformation (conflict resolution) of a collection. */
+    public static final int GRAPH_TRANSFORMATION = 3;
+
+    /** Tracker or dependency tracker record written by the tracking extension. */
+    public static final int TRACKING_WRITE = 4;
+
+    private static final String[] NAMES = { "collect", "descriptor", "range", "transform", "track" };
+
+    private static final String JFR_EVENTS = "org.eclipse.aether.internal.impl.collect.JfrCollectionEvents";
+
+    private static final CollectionEvents EVENTS = load();
+
+    /**
+     * Set by the implementation while at least one flight recording is running.
+     */
+    protected static volatile boolean recording;
+
+    /**
+     * Starts an event of given type, returns {@code null} when no recording is running.
+     */
+    public static Object begin( int type )
+    {
+        if ( TraceRecorder.isRecording() )
+        {
+            return new Traced( type, System.nanoTime(), recording ? EVENTS.start( type ) : null );
+        }
+        return recording ? EVENTS.start( type ) : null;
+    }
+
+    /**
+     * Ends and commits (if enabled in the recording) an event started with {@link #begin(int)}.
+     *
+     * @param coordinates artifact or other object the event is about, converted with {@code toString()} only when the
+     *                    event is committed
+     * @param detail      request context, tracker kind, ...
+     */
+    public static void end( Object event, Object coordinates, String detail )
+    {
+        if ( event instanceof Traced )
+        {
+            Traced traced = (Traced) event;
+            TraceRecorder.span( NAMES[traced.type], traced.type == TRACKING_WRITE ? "tracking" : "collection",
+                                traced.start, System.nanoTime(), coordinates, detail );
+            event = traced.event;
+        }
+        if ( event != null )
+        {
+            EVENTS.commit( event, coordinates, detail );
+        }
+    }
+
+    protected abstract Object start( int type );
+
+    protected abstract void commit( Object event, Object coordinates, String detail );
+
+    private static CollectionEvents load()
+    {
+        try
+        {
+            return (CollectionEvents) Class.forName( JFR_EVENTS ).getConstructor().newInstance();
+        }
+        catch ( Exception | LinkageError e )
+        {
+            // no JFR (e.g. Java 8), events are never started
+            return null;
+        }
+    }
+
+    private static final class Traced
+    {
+        final int type;
+
+        final long start;
+
+        final Object event;
+
+        Traced( int type, long start, Object event )
+        {
+            this.type = type;
+            this.start = start;
+            this.event = event;
+        }
+    }
+
+}
@@ -0,0 +1,250 @@
+package org.eclipse.aether.internal.impl.collect;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.aether.RepositoryCache;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.collection.CollectRequest;
+import org.eclipse.aether.collection.CollectResult;
+import org.eclipse.aether.graph.DefaultDependencyNode;
+import org.eclipse.aether.graph.DependencyCycle;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.util.ConfigUtils;
+import org.eclipse.aether.util.graph.manager.DependencyManagerUtils;
+
+/**
+ * Session-scoped memo of complete (collected and transformed) dependency graphs. Reactor modules and plugins often
+ * collect identical dependency sets; a request whose fingerprint matches a previous successful collection gets a deep
+ * copy of the memoized graph instead of being collected again.
+ * <p>
+ * The root artifact (e.g. the project artifact) is not part of the fingerprint, so modules declaring the same
+ * dependencies share a memoized graph. It only takes part in cycle detection, so graphs with cycles are not memoized
+ * and a memoized graph is not used for a root artifact that occurs in it.
+ */
+final class CollectionMemo
+{
+
+    private static final String KEY = CollectionMemo.class.getName();
+
+    private final Map<Object, CollectResult> results = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    static CollectionMemo get( RepositorySystemSession session )
+    {
+        RepositoryCache cache = session.getCache();
+        if ( cache == null )
+        {
+            return null;
+        }
+        synchronized ( cache )
+        {
+            CollectionMemo memo = (CollectionMemo) cache.get( session, KEY );
+            if ( memo == null )
+            {
+                memo = new CollectionMemo();
+                cache.put( session, KEY, memo );
+            }
+            return memo;
+        }
+    }
+
+    Object toKey( RepositorySystemSession session, CollectRequest request )
+    {
+        return new Fingerprint( session, request );
+    }
+
+    /**
+     * Returns a copy of the memoized result for given request or {@code null}.
+     */
+    CollectResult get( Object key, CollectRequest request )
+    {
+        CollectResult memoized = results.get( key );
+        if ( memoized == null )
+        {
+            misses.incrementAndGet();
+            return null;
+        }
+        Artifact rootArtifact = request.getRoot() == null ? request.getRootArtifact() : null;
+        if ( rootArtifact != null && contains( memoized.getRoot(), rootArtifact ) )
+        {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        CollectResult copy = copy( memoized, request );
+        if ( rootArtifact != null )
+        {
+            ( (DefaultDependencyNode) copy.getRoot() ).setArtifact( rootArtifact );
+        }
+        return copy;
+    }
+
+    /**
+     * Memoizes a copy of a successful result, so later changes done by the caller don't affect the memo.
+     */
+    void put( Object key, CollectResult result )
+    {
+        if ( result.getCycles().isEmpty() )
+        {
+            results.put( key, copy( result, result.getRequest() ) );
+        }
+    }
+
+    long getHits()
+    {
+        return hits.get();
+    }
+
+    long getMisses()
+    {
+        return misses.get();
+    }
+
+    private static CollectResult copy( CollectResult result, CollectRequest request )
+    {
+        CollectResult copy = new CollectResult( request );
+        if ( result.getRoot() != null )
+        {
+            copy.setRoot( copy( result.getRoot(), new IdentityHashMap<DependencyNode, DependencyNode>() ) );
+        }
+        for ( DependencyCycle cycle : result.getCycles() )
+        {
+            copy.addCycle( cycle );
+        }
+        return copy;
+    }
+
+    /**
+     * Copies the graph preserving shared sub-graphs (and cycles of a graph that was not transformed). Each copied node
+     * gets its own data map (values are shared), so data set on a copy never reaches the memoized graph.
+     */
+    private static DependencyNode copy( DependencyNode node, Map<DependencyNode, DependencyNode> copies )
+    {
+        DependencyNode copy = copies.get( node );
+        if ( copy == null )
+        {
+            DefaultDependencyNode newNode = new DefaultDependencyNode( node );
+            if ( !node.getData().isEmpty() )
+            {
+                newNode.setData( new HashMap<>( node.getData() ) );
+            }
+            copies.put( node, newNode );
+            List<DependencyNode> children = new ArrayList<>( node.getChildren().size() );
+            for ( DependencyNode child : node.getChildren() )
+            {
+                children.add( copy( child, copies ) );
+            }
+            newNode.setChildren( children );
+            copy = newNode;
+        }
+        return copy;
+    }
+
+    /**
+     * Checks whether the graph contains a node which {@link NodeStack#find(Artifact)} would consider a cycle with given
+     * artifact.
+     */
+    private static boolean contains( DependencyNode root, Artifact artifact )
+    {
+        Deque<DependencyNode> queue = new ArrayDeque<>( root.getChildren() );
+        Set<DependencyNode> visited = Collections.newSetFromMap( new IdentityHashMap<DependencyNode, Boolean>() );
+        while ( !queue.isEmpty() )
+        {
+            DependencyNode node = queue.poll();
+            Artifact a = node.getArtifact();
+            if ( a == null || !visited.add( node ) )
+            {
+                continue;
+            }
+            if ( a.getArtifactId().equals( artifact.getArtifactId() ) && a.getGroupId().equals( artifact.getGroupId() )
+                && a.getExtension().equals( artifact.getExtension() )
+                && a.getClassifier().equals( artifact.getClassifier() ) )
+            {
+                return true;
+            }
+            queue.addAll( node.getChildren() );
+        }
+        return false;
+    }
+
+    /**
+     * Fingerprint of a collect request together with the session settings affecting collection.
+     */
+    static final class Fingerprint
+    {
+
+        private final Object[] parts;
+
+        private final int hashCode;
+
+        Fingerprint( RepositorySystemSession session, CollectRequest request )
+        {
+            parts = new Object[] {
+                request.getRoot(), request.getDependencies(),
+                request.getManagedDependencies(), request.getRepositories(), request.getRequestContext(),
+                session.getDependencySelector(), session.getDependencyManager(), session.getDependencyTraverser(),
+                session.getVersionFilter(), session.getDependencyGraphTransformer(),
+                session.isIgnoreArtifactDescriptorRepositories(),
+                ConfigUtils.getBoolean( session, false, DependencyManagerUtils.CONFIG_PROP_VERBOSE )
+            };
+            hashCode = Arrays.hashCode( parts );
+        }
+
+        @Override
+        public boolean equals( Object obj )
+        {
+            if ( obj == this )
+            {
+                return true;
+            }
+            else if ( !( obj instanceof Fingerprint ) )
+            {
+                return false;
+            }
+            Fingerprint that = (Fingerprint) obj;
+            return hashCode == that.hashCode && Arrays.equals( parts, that.parts );
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hashCode;
+        }
+
+    }
+
+}
@@ -0,0 +1,124 @@
+package org.eclipse.aether.internal.impl.collect;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * JVM-wide counters of dependency collection, read (e.g. through JMX) while builds run. Counters are
+ * {@link LongAdder}s, so concurrent collections updating them don't contend. Sizes of the caches are read from the
+ * {@link DataPool} of the most recent collection, which is only weakly referenced.
+ */
+public final class CollectionMetrics
+{
+
+    static final LongAdder ACTIVE_COLLECTIONS = new LongAdder();
+
+    static final LongAdder COLLECTIONS = new LongAdder();
+
+    static final LongAdder NODES = new LongAdder();
+
+    static final LongAdder DESCRIPTOR_HITS = new LongAdder();
+
+    static final LongAdder DESCRIPTOR_MISSES = new LongAdder();
+
+    static final LongAdder CONSTRAINT_HITS = new LongAdder();
+
+    static final LongAdder CONSTRAINT_MISSES = new LongAdder();
+
+    private static volatile WeakReference<DataPool> lastPool = new WeakReference<>( null );
+
+    private CollectionMetrics()
+    {
+        // hide constructor
+    }
+
+    static void pool( DataPool pool )
+    {
+        lastPool = new WeakReference<>( pool );
+    }
+
+    /**
+     * Number of collections in progress.
+     */
+    public static long getActiveCollections()
+    {
+        return ACTIVE_COLLECTIONS.sum();
+    }
+
+    /**
+     * Number of started collections (including memoized ones).
+     */
+    public static long getCollections()
+    {
+        return COLLECTIONS.sum();
+    }
+
+    /**
+     * Number of processed dependency nodes.
+     */
+    public static long getNodes()
+    {
+        return NODES.sum();
+    }
+
+    /**
+     * Fraction of descriptor lookups served from the {@link DataPool}.
+     */
+    public static double getDescriptorHitRate()
+    {
+        return rate( DESCRIPTOR_HITS.sum(), DESCRIPTOR_MISSES.sum() );
+    }
+
+    /**
+     * Fraction of version (range) lookups served from the {@link DataPool}.
+     */
+    public static double getConstraintHitRate()
+    {
+        return rate( CONSTRAINT_HITS.sum(), CONSTRAINT_MISSES.sum() );
+    }
+
+    /**
+     * Current numbers of started collections, processed nodes, descriptor hits and misses and version constraint hits
+     * and misses. Values of a single build (e.g. in a daemon) are differences of two snapshots.
+     */
+    public static long[] snapshot()
+    {
+        return new long[] { COLLECTIONS.sum(), NODES.sum(), DESCRIPTOR_HITS.sum(), DESCRIPTOR_MISSES.sum(),
+            CONSTRAINT_HITS.sum(), CONSTRAINT_MISSES.sum() };
+    }
+
+    /**
+     * Sizes of the interned artifacts, interned dependencies, descriptors, version constraints and children caches of
+     * the most recent collection's {@link DataPool}, zeros when it's gone.
+     */
+    public static int[] getPoolSizes()
+    {
+        DataPool pool = lastPool.get();
+        return pool == null ? new int[5] : pool.sizes();
+    }
+
+    private static double rate( long hits, long misses )
+    {
+        return hits + misses == 0 ? 0d : hits / (double) ( hits + misses );
+    }
+
+}
@@ -19,6 +19,7 @@ package org.eclipse.aether.internal.impl.collect;
  * under the License.
  */
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -30,6 +31,7 @@ import java.util.WeakHashMap;
 import org.eclipse.aether.RepositoryCache;
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.collection.DependencyCollectionContext;
 import org.eclipse.aether.collection.DependencyManager;
 import org.eclipse.aether.collection.DependencySelector;
 import org.eclipse.aether.collection.DependencyTraverser;
@@ -70,8 +72,20 @@ final class DataPool
 
     private Map<Object, List<DependencyNode>> nodes = new HashMap<>( 256 );
 
-    @SuppressWarnings( "unchecked" )
+    private Map<Object, Object> derived = new HashMap<>( 256 );
+
+    private final ResolutionManifest manifest;
+
     DataPool( RepositorySystemSession session )
+    {
+        this( session, true );
+    }
+
+    /**
+     * @param collection whether the pool serves a collection, so it's reported by {@link CollectionMetrics}
+     */
+    @SuppressWarnings( "unchecked" )
+    DataPool( RepositorySystemSession session, boolean collection )
     {
         RepositoryCache cache = session.getCache();
 
@@ -108,6 +122,12 @@ final class DataPool
                 cache.put( session, DESCRIPTORS, descriptors );
             }
         }
+
+        manifest = ResolutionManifest.get( session );
+        if ( collection )
+        {
+            CollectionMetrics.pool( this );
+        }
     }
 
     public Artifact intern( Artifact artifact )
@@ -130,12 +150,47 @@ final class DataPool
         Descriptor descriptor = descriptors.get( key );
         if ( descriptor != null )
         {
+            CollectionMetrics.DESCRIPTOR_HITS.increment();
+            if ( manifest != null && descriptor != BadDescriptor.INSTANCE )
+            {
+                manifest.descriptorNeeded( request.getArtifact() );
+            }
             return descriptor.toResult( request );
         }
+        CollectionMetrics.DESCRIPTOR_MISSES.increment();
+        return null;
+    }
+
+    /**
+     * Returns a cached descriptor as a read-only result shared by all lookups of the same key, avoiding a new result
+     * per lookup. The request of the shared result only carries the artifact.
+     */
+    ArtifactDescriptorResult getSharedDescriptor( Object key )
+    {
+        Descriptor descriptor = descriptors.get( key );
+        if ( descriptor != null )
+        {
+            CollectionMetrics.DESCRIPTOR_HITS.increment();
+            if ( manifest != null && descriptor != BadDescriptor.INSTANCE )
+            {
+                manifest.descriptorNeeded( (Artifact) key );
+            }
+            return descriptor.toSharedResult();
+        }
+        CollectionMetrics.DESCRIPTOR_MISSES.increment();
         return null;
     }
 
     void putDescriptor( Object key, ArtifactDescriptorResult result )
+    {
+        descriptors.put( key, new GoodDescriptor( result ) );
+        if ( manifest != null )
+        {
+            manifest.descriptorNeeded( result.getRequest().getArtifact() );
+        }
+    }
+
+    void preloadDescriptor( Object key, ArtifactDescriptorResult result )
     {
         descriptors.put( key, new GoodDescriptor( result ) );
     }
@@ -155,14 +210,40 @@ final class DataPool
         Constraint constraint = constraints.get( key );
         if ( constraint != null )
         {
+            CollectionMetrics.CONSTRAINT_HITS.increment();
             return constraint.toResult( request );
         }
+        CollectionMetrics.CONSTRAINT_MISSES.increment();
+        return null;
+    }
+
+    Object toKey( Artifact artifact, List<RemoteRepository> repositories )
+    {
+        return new ConstraintKey( artifact, repositories );
+    }
+
+    /**
+     * Returns a cached version range as a read-only result shared by all lookups of the same key.
+     */
+    VersionRangeResult getSharedConstraint( Object key )
+    {
+        Constraint constraint = constraints.get( key );
+        if ( constraint != null )
+        {
+            CollectionMetrics.CONSTRAINT_HITS.increment();
+            return constraint.toSharedResult( (ConstraintKey) key );
+        }
+        CollectionMetrics.CONSTRAINT_MISSES.increment();
         return null;
     }
 
     void putConstraint( Object key, VersionRangeResult result )
     {
         constraints.put( key, new Constraint( result ) );
+        if ( manifest != null && result.getVersionConstraint().getRange() != null )
+        {
+            manifest.rangeNeeded( result.getRequest().getArtifact() );
+        }
     }
 
     public Object toKey( Artifact artifact, List<RemoteRepository> repositories, DependencySelector selector,
@@ -181,11 +262,117 @@ final class DataPool
         nodes.put( key, children );
     }
 
+    /**
+     * Sizes of the pools and caches, read from other threads (so only approximate) by {@link CollectionMetrics}.
+     */
+    int[] sizes()
+    {
+        return new int[] { artifacts.size(), dependencies.size(), descriptors.size(), constraints.size(),
+            nodes.size() };
+    }
+
+    /**
+     * Derives child strategies through a memoization layer, so the same (parent strategy, dependency, managed
+     * dependencies) input yields the very same derived instance. Besides saving the cost of repeated derivation (e.g.
+     * merging big BOM-sized management maps), identical strategies make {@link GraphKey} comparisons cheap and hit more
+     * often.
+     */
+    DependencySelector deriveChildSelector( DependencySelector selector, DependencyCollectionContext context )
+    {
+        if ( selector == null )
+        {
+            return null;
+        }
+        Object key = new DerivedKey( DependencySelector.class, selector, context );
+        DependencySelector child = (DependencySelector) derived.get( key );
+        if ( child == null )
+        {
+            child = selector.deriveChildSelector( context );
+            derived.put( key, child );
+        }
+        return child;
+    }
+
+    DependencyManager deriveChildManager( DependencyManager manager, DependencyCollectionContext context )
+    {
+        if ( manager == null )
+        {
+            return null;
+        }
+        Object key = new DerivedKey( DependencyManager.class, manager, context );
+        DependencyManager child = (DependencyManager) derived.get( key );
+        if ( child == null )
+        {
+            child = manager.deriveChildManager( context );
+            derived.put( key, child );
+        }
+        return child;
+    }
+
+    DependencyTraverser deriveChildTraverser( DependencyTraverser traverser, DependencyCollectionContext context )
+    {
+        if ( traverser == null )
+        {
+            return null;
+        }
+        Object key = new DerivedKey( DependencyTraverser.class, traverser, context );
+        DependencyTraverser child = (DependencyTraverser) derived.get( key );
+        if ( child == null )
+        {
+            child = traverser.deriveChildTraverser( context );
+            derived.put( key, child );
+        }
+        return child;
+    }
+
+    VersionFilter deriveChildFilter( VersionFilter filter, DependencyCollectionContext context )
+    {
+        if ( filter == null )
+        {
+            return null;
+        }
+        Object key = new DerivedKey( VersionFilter.class, filter, context );
+        VersionFilter child = (VersionFilter) derived.get( key );
+        if ( child == null )
+        {
+            child = filter.deriveChildFilter( context );
+            derived.put( key, child );
+        }
+        return child;
+    }
+
+    ObjectPool<Artifact> getArtifactPool()
+    {
+        return artifacts;
+    }
+
+    ObjectPool<Dependency> getDependencyPool()
+    {
+        return dependencies;
+    }
+
+    Map<Object, Descriptor> getDescriptors()
+    {
+        return descriptors;
+    }
+
+    Map<Object, Constraint> getConstraints()
+    {
+        return constraints;
+    }
+
+    Map<Object, List<DependencyNode>> getNodes()
+    {
+        return nodes;
+    }
+
     abstract static class Descriptor
     {
 
         public abstract ArtifactDescriptorResult toResult( ArtifactDescriptorRequest request );
 
+        public abstract ArtifactDescriptorResult toSharedResult();
+
     }
 
     static final class GoodDescriptor
@@ -204,8 +391,13 @@ final class DataPool
 
         final List<Dependency> managedDependencies;
 
+        final Artifact requestArtifact;
+
+        private volatile ArtifactDescriptorResult shared;
+
         GoodDescriptor( ArtifactDescriptorResult result )
         {
+            requestArtifact = result.getRequest().getArtifact();
             artifact = result.getArtifact();
             relocations = result.getRelocations();
             aliases = result.getAliases();
@@ -226,6 +418,24 @@ final class DataPool
             return result;
         }
 
+        public ArtifactDescriptorResult toSharedResult()
+        {
+            ArtifactDescriptorResult result = shared;
+            if ( result == null )
+            {
+                // a benign race may create more than one view, all of them equal
+                result = new ArtifactDescriptorResult( new ArtifactDescriptorRequest( requestArtifact, null, null ) );
+                result.setArtifact( artifact );
+                result.setRelocations( Collections.unmodifiableList( relocations ) );
+                result.setAliases( Collections.unmodifiableCollection( aliases ) );
+                result.setDependencies( Collections.unmodifiableList( dependencies ) );
+                result.setManagedDependencies( Collections.unmodifiableList( managedDependencies ) );
+                result.setRepositories( Collections.unmodifiableList( repositories ) );
+                shared = result;
+            }
+            return result;
+        }
+
     }
 
     static final class BadDescriptor
@@ -238,14 +448,21 @@ final class DataPool
         {
             return NO_DESCRIPTOR;
         }
+
+        public ArtifactDescriptorResult toSharedResult()
+        {
+            return NO_DESCRIPTOR;
+        }
     }
 
-    private static final class Constraint
+    static final class Constraint
     {
         final VersionRepo[] repositories;
 
         final VersionConstraint versionConstraint;
 
+        private VersionRangeResult shared;
+
         Constraint( VersionRangeResult result )
         {
             versionConstraint = result.getVersionConstraint();
@@ -270,6 +487,25 @@ final class DataPool
             return result;
         }
 
+        VersionRangeResult toSharedResult( ConstraintKey key )
+        {
+            if ( shared == null )
+            {
+                VersionRangeResult result =
+                    new VersionRangeResult( new VersionRangeRequest( key.artifact, key.repositories, null ) );
+                List<Version> versions = new ArrayList<>( repositories.length );
+                for ( VersionRepo vr : repositories )
+                {
+                    versions.add( vr.version );
+                    result.setRepository( vr.version, vr.repo );
+                }
+                result.setVersions( Collections.unmodifiableList( versions ) );
+                result.setVersionConstraint( versionConstraint );
+                shared = result;
+            }
+            return shared;
+        }
+
         static final class VersionRepo
         {
             final Version version;
@@ -294,8 +530,13 @@ final class DataPool
 
         ConstraintKey( VersionRangeRequest request )
         {
-            artifact = request.getArtifact();
-            repositories = request.getRepositories();
+            this( request.getArtifact(), request.getRepositories() );
+        }
+
+        ConstraintKey( Artifact artifact, List<RemoteRepository> repositories )
+        {
+            this.artifact = artifact;
+            this.repositories = repositories;
             hashCode = artifact.hashCode();
         }
 
@@ -410,4 +651,56 @@ final class DataPool
             return hashCode;
         }
     }
+
+    /**
+     * Key of a derived strategy. Parent strategy and managed dependencies are compared by identity (the managed
+     * dependencies come straight from cached descriptors), the dependency by equality.
+     */
+    static final class DerivedKey
+    {
+        private final Class<?> type;
+
+        private final Object parent;
+
+        private final Dependency dependency;
+
+        private final List<Dependency> managedDependencies;
+
+        private final int hashCode;
+
+        DerivedKey( Class<?> type, Object parent, DependencyCollectionContext context )
+        {
+            this.type = type;
+            this.parent = parent;
+            this.dependency = context.getDependency();
+            this.managedDependencies = context.getManagedDependencies();
+
+            int hash = System.identityHashCode( parent );
+            hash = hash * 31 + Objects.hashCode( dependency );
+            hash = hash * 31 + System.identityHashCode( managedDependencies );
+            hashCode = hash;
+        }
+
+        @Override
+        public boolean equals( Object obj )
+        {
+            if ( obj == this )
+            {
+                return true;
+            }
+            else if ( !( obj instanceof DerivedKey ) )
+            {
+                return false;
+            }
+            DerivedKey that = (DerivedKey) obj;
+            return type == that.type && parent == that.parent && managedDependencies == that.managedDependencies
+                && Objects.equals( dependency, that.dependency );
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hashCode;
+        }
+    }
 }
@@ -87,6 +87,12 @@ public class DefaultDependencyCollector
 
     private static final int CONFIG_PROP_MAX_CYCLES_DEFAULT = 10;
 
+    // CHANGE: cached results are returned as shared read-only views and request objects are only created on misses
+    static final String CONFIG_PROP_REDUCE_ALLOCATIONS = "aether.dependencyCollector.reduceAllocations";
+
+    // CHANGE: complete results are memoized per session
+    static final String CONFIG_PROP_MEMOIZE_COLLECTIONS = "aether.dependencyCollector.memoizeCollections";
+
     private static final Logger LOGGER = LoggerFactory.getLogger( DefaultDependencyCollector.class );
 
     private RemoteRepositoryManager remoteRepositoryManager;
@@ -137,10 +143,48 @@ public class DefaultDependencyCollector
         return this;
     }
 
-    @SuppressWarnings( "checkstyle:methodlength" )
     public CollectResult collectDependencies( RepositorySystemSession session, CollectRequest request )
         throws DependencyCollectionException
     {
+        // CHANGE: JFR event of the whole collection and live metrics
+        Object event = CollectionEvents.begin( CollectionEvents.COLLECTION );
+        CollectionMetrics.COLLECTIONS.increment();
+        CollectionMetrics.ACTIVE_COLLECTIONS.increment();
+        try
+        {
+            return doCollectDependencies( session, request );
+        }
+        finally
+        {
+            CollectionMetrics.ACTIVE_COLLECTIONS.decrement();
+            CollectionEvents.end( event, request.getRoot() != null ? request.getRoot() : request.getRootArtifact(),
+                                  request.getRequestContext() );
+        }
+    }
+
+    @SuppressWarnings( "checkstyle:methodlength" )
+    private CollectResult doCollectDependencies( RepositorySystemSession session, CollectRequest request )
+        throws DependencyCollectionException
+    {
+        CollectionMemo memo = null;
+        Object memoKey = null;
+        if ( ConfigUtils.getBoolean( session, false, CONFIG_PROP_MEMOIZE_COLLECTIONS ) )
+        {
+            memo = CollectionMemo.get( session );
+            if ( memo != null )
+            {
+                memoKey = memo.toKey( session, request );
+                CollectResult memoized = memo.get( memoKey, request );
+                if ( memoized != null )
+                {
+                    LOGGER.debug( "Dependency collection memo hit for {} (hits: {}, misses: {})",
+                                  request.getRoot() != null ? request.getRoot() : request.getRootArtifact(),
+                                  memo.getHits(), memo.getMisses() );
+                    return memoized;
+                }
+            }
+        }
+
         session = optimizeSession( session );
 
         RequestTrace trace = RequestTrace.newChild( request.getTrace(), request );
@@ -171,7 +215,15 @@ public class DefaultDependencyCollector
                     new VersionRangeRequest( root.getArtifact(), request.getRepositories(),
                                              request.getRequestContext() );
                 rangeRequest.setTrace( trace );
-                rangeResult = versionRangeResolver.resolveVersionRange( session, rangeRequest );
+                Object event = CollectionEvents.begin( CollectionEvents.VERSION_RANGE );
+                try
+                {
+                    rangeResult = versionRangeResolver.resolveVersionRange( session, rangeRequest );
+                }
+                finally
+                {
+                    CollectionEvents.end( event, root.getArtifact(), request.getRequestContext() );
+                }
                 versions = filterVersions( root, rangeResult, verFilter, new DefaultVersionFilterContext( session ) );
             }
             catch ( VersionRangeResolutionException e )
@@ -197,7 +249,15 @@ public class DefaultDependencyCollector
                 }
                 else
                 {
-                    descriptorResult = descriptorReader.readArtifactDescriptor( session, descriptorRequest );
+                    Object event = CollectionEvents.begin( CollectionEvents.DESCRIPTOR_READ );
+                    try
+                    {
+                        descriptorResult = descriptorReader.readArtifactDescriptor( session, descriptorRequest );
+                    }
+                    finally
+                    {
+                        CollectionEvents.end( event, root.getArtifact(), request.getRequestContext() );
+                    }
                 }
             }
             catch ( ArtifactDescriptorException e )
@@ -236,9 +296,10 @@ public class DefaultDependencyCollector
 
         boolean traverse = root == null || depTraverser == null || depTraverser.traverseDependency( root );
         String errorPath = null;
+        DataPool pool = null;
         if ( traverse && !dependencies.isEmpty() )
         {
-            DataPool pool = new DataPool( session );
+            pool = new DataPool( session );
 
             NodeStack nodes = new NodeStack();
             nodes.push( node );
@@ -270,7 +331,15 @@ public class DefaultDependencyCollector
                 DefaultDependencyGraphTransformationContext context =
                     new DefaultDependencyGraphTransformationContext( session );
                 context.put( TransformationContextKeys.STATS, stats );
-                result.setRoot( transformer.transformGraph( node, context ) );
+                Object event = CollectionEvents.begin( CollectionEvents.GRAPH_TRANSFORMATION );
+                try
+                {
+                    result.setRoot( transformer.transformGraph( node, context ) );
+                }
+                finally
+                {
+                    CollectionEvents.end( event, node.getArtifact(), request.getRequestContext() );
+                }
             }
             catch ( RepositoryException e )
             {
@@ -281,7 +350,16 @@ public class DefaultDependencyCollector
         long time3 = System.nanoTime();
         stats.put( "DefaultDependencyCollector.collectTime", time2 - time1 );
         stats.put( "DefaultDependencyCollector.transformTime", time3 - time2 );
-        LOGGER.debug( "Dependency collection stats {}", stats );
+        // CHANGE: optional heap footprint estimates
+        if ( Footprint.isEnabled( session ) )
+        {
+            stats.putAll( Footprint.estimate( pool != null ? pool : new DataPool( session ), result.getRoot() ) );
+            LOGGER.info( "Dependency collection stats {}", stats );
+        }
+        else
+        {
+            LOGGER.debug( "Dependency collection stats {}", stats );
+        }
 
         if ( errorPath != null )
         {
@@ -292,6 +370,11 @@ public class DefaultDependencyCollector
             throw new DependencyCollectionException( result );
         }
 
+        if ( memo != null )
+        {
+            memo.put( memoKey, result );
+        }
+
         return result;
     }
 
@@ -370,6 +453,7 @@ public class DefaultDependencyCollector
                                     DependencyTraverser depTraverser, VersionFilter verFilter, Dependency dependency,
                                     List<Artifact> relocations, boolean disableVersionManagement )
     {
+        CollectionMetrics.NODES.increment();
 
         if ( depSelector != null && !depSelector.selectDependency( dependency ) )
         {
@@ -377,7 +461,8 @@ public class DefaultDependencyCollector
         }
 
         PremanagedDependency preManaged =
-            PremanagedDependency.create( depManager, dependency, disableVersionManagement, args.premanagedState );
+            PremanagedDependency.create( depManager, dependency, disableVersionManagement, args.premanagedState,
+                                         args.reduceAllocations );
         dependency = preManaged.managedDependency;
 
         boolean noDescriptor = isLackingDescriptor( dependency.getArtifact() );
@@ -388,9 +473,8 @@ public class DefaultDependencyCollector
         VersionRangeResult rangeResult;
         try
         {
-            VersionRangeRequest rangeRequest = createVersionRangeRequest( args, repositories, dependency );
-
-            rangeResult = cachedResolveRangeResult( rangeRequest, args.pool, args.session );
+            // CHANGE: the range request is created in the lookup, only on cache misses with reduceAllocations
+            rangeResult = cachedResolveRangeResult( args, repositories, dependency );
 
             versions = filterVersions( dependency, rangeResult, verFilter, args.versionContext );
         }
@@ -405,10 +489,9 @@ public class DefaultDependencyCollector
             Artifact originalArtifact = dependency.getArtifact().setVersion( version.toString() );
             Dependency d = dependency.setArtifact( originalArtifact );
 
-            ArtifactDescriptorRequest descriptorRequest = createArtifactDescriptorRequest( args, repositories, d );
-
+            // CHANGE: the descriptor request is created in the lookup, only on cache misses with reduceAllocations
             final ArtifactDescriptorResult descriptorResult =
-                getArtifactDescriptorResult( args, results, noDescriptor, d, descriptorRequest );
+                getArtifactDescriptorResult( args, results, noDescriptor, d, repositories );
             if ( descriptorResult != null )
             {
                 d = d.setArtifact( descriptorResult.getArtifact() );
@@ -483,10 +566,11 @@ public class DefaultDependencyCollector
         DefaultDependencyCollectionContext context = args.collectionContext;
         context.set( d, descriptorResult.getManagedDependencies() );
 
-        DependencySelector childSelector = depSelector != null ? depSelector.deriveChildSelector( context ) : null;
-        DependencyManager childManager = depManager != null ? depManager.deriveChildManager( context ) : null;
-        DependencyTraverser childTraverser = depTraverser != null ? depTraverser.deriveChildTraverser( context ) : null;
-        VersionFilter childFilter = verFilter != null ? verFilter.deriveChildFilter( context ) : null;
+        // CHANGE: derived strategies are memoized in the pool
+        DependencySelector childSelector = args.pool.deriveChildSelector( depSelector, context );
+        DependencyManager childManager = args.pool.deriveChildManager( depManager, context );
+        DependencyTraverser childTraverser = args.pool.deriveChildTraverser( depTraverser, context );
+        VersionFilter childFilter = args.pool.deriveChildFilter( verFilter, context );
 
         final List<RemoteRepository> childRepos =
             args.ignoreRepos
@@ -515,28 +599,44 @@ public class DefaultDependencyCollector
         }
     }
 
+    /**
+     * Looks up the descriptor in the pool and reads it on a miss. With {@code reduceAllocations}, a cached descriptor is
+     * returned as the shared read-only result and the request is only created on a miss.
+     */
     private ArtifactDescriptorResult getArtifactDescriptorResult( Args args, Results results, boolean noDescriptor,
-                                                                  Dependency d,
-                                                                  ArtifactDescriptorRequest descriptorRequest )
+                                                                  Dependency d, List<RemoteRepository> repositories )
     {
-        return noDescriptor
-                   ? new ArtifactDescriptorResult( descriptorRequest )
-                   : resolveCachedArtifactDescriptor( args.pool, descriptorRequest, args.session, d, results, args );
-
-    }
+        ArtifactDescriptorRequest descriptorRequest =
+            args.reduceAllocations ? null : createArtifactDescriptorRequest( args, repositories, d );
+        if ( noDescriptor )
+        {
+            return new ArtifactDescriptorResult( descriptorRequest != null ? descriptorRequest
+                                                     : createArtifactDescriptorRequest( args, repositories, d ) );
+        }
 
-    private ArtifactDescriptorResult resolveCachedArtifactDescriptor( DataPool pool,
-                                                                      ArtifactDescriptorRequest descriptorRequest,
-                                                                      RepositorySystemSession session, Dependency d,
-                                                                      Results results, Args args )
-    {
-        Object key = pool.toKey( descriptorRequest );
-        ArtifactDescriptorResult descriptorResult = pool.getDescriptor( key, descriptorRequest );
+        DataPool pool = args.pool;
+        Object key = descriptorRequest != null ? pool.toKey( descriptorRequest ) : d.getArtifact();
+        ArtifactDescriptorResult descriptorResult = descriptorRequest != null
+            ? pool.getDescriptor( key, descriptorRequest )
+            : pool.getSharedDescriptor( key );
         if ( descriptorResult == null )
         {
+            if ( descriptorRequest == null )
+            {
+                descriptorRequest = createArtifactDescriptorRequest( args, repositories, d );
+            }
             try
             {
-                descriptorResult = descriptorReader.readArtifactDescriptor( session, descriptorRequest );
+                Object event = CollectionEvents.begin( CollectionEvents.DESCRIPTOR_READ );
+                try
+                {
+                    descriptorResult = descriptorReader.readArtifactDescriptor( args.session, descriptorRequest );
+                }
+                finally
+                {
+                    CollectionEvents.end( event, descriptorRequest.getArtifact(),
+                                          descriptorRequest.getRequestContext() );
+                }
                 pool.putDescriptor( key, descriptorResult );
             }
             catch ( ArtifactDescriptorException e )
@@ -609,15 +709,38 @@ public class DefaultDependencyCollector
         return rangeRequest;
     }
 
-    private VersionRangeResult cachedResolveRangeResult( VersionRangeRequest rangeRequest, DataPool pool,
-                                                         RepositorySystemSession session )
+    /**
+     * Looks up the version range in the pool and resolves it on a miss. With {@code reduceAllocations}, a cached range
+     * is returned as the shared read-only result and the request is only created on a miss.
+     */
+    private VersionRangeResult cachedResolveRangeResult( Args args, List<RemoteRepository> repositories,
+                                                         Dependency dependency )
         throws VersionRangeResolutionException
     {
-        Object key = pool.toKey( rangeRequest );
-        VersionRangeResult rangeResult = pool.getConstraint( key, rangeRequest );
+        VersionRangeRequest rangeRequest =
+            args.reduceAllocations ? null : createVersionRangeRequest( args, repositories, dependency );
+        DataPool pool = args.pool;
+        Object key = rangeRequest != null
+            ? pool.toKey( rangeRequest )
+            : pool.toKey( dependency.getArtifact(), repositories );
+        VersionRangeResult rangeResult = rangeRequest != null
+            ? pool.getConstraint( key, rangeRequest )
+            : pool.getSharedConstraint( key );
         if ( rangeResult == null )
         {
-            rangeResult = versionRangeResolver.resolveVersionRange( session, rangeRequest );
+            if ( rangeRequest == null )
+            {
+                rangeRequest = createVersionRangeRequest( args, repositories, dependency );
+            }
+            Object event = CollectionEvents.begin( CollectionEvents.VERSION_RANGE );
+            try
+            {
+                rangeResult = versionRangeResolver.resolveVersionRange( args.session, rangeRequest );
+            }
+            finally
+            {
+                CollectionEvents.end( event, rangeRequest.getArtifact(), rangeRequest.getRequestContext() );
+            }
             pool.putConstraint( key, rangeResult );
         }
         return rangeResult;
@@ -693,6 +816,8 @@ public class DefaultDependencyCollector
 
         final boolean premanagedState;
 
+        final boolean reduceAllocations;
+
         final RequestTrace trace;
 
         final DataPool pool;
@@ -714,6 +839,7 @@ public class DefaultDependencyCollector
             this.request = request;
             this.ignoreRepos = session.isIgnoreArtifactDescriptorRepositories();
             this.premanagedState = ConfigUtils.getBoolean( session, false, DependencyManagerUtils.CONFIG_PROP_VERBOSE );
+            this.reduceAllocations = ConfigUtils.getBoolean( session, false, CONFIG_PROP_REDUCE_ALLOCATIONS );
             this.trace = trace;
             this.pool = pool;
             this.nodes = nodes;
@@ -721,6 +847,12 @@ public class DefaultDependencyCollector
             this.versionContext = versionContext;
         }
 
+        // CHANGE: read-only access to the session for subclasses of the collector
+        public RepositorySystemSession getSession()
+        {
+            return session;
+        }
+
     }
 
     // CHANGE: package to protected
@@ -810,31 +942,53 @@ public class DefaultDependencyCollector
 
         final boolean premanagedState;
 
+        final boolean reduced;
+
         @SuppressWarnings( "checkstyle:parameternumber" )
         PremanagedDependency( String premanagedVersion, String premanagedScope, Boolean premanagedOptional,
                               Collection<Exclusion> premanagedExclusions, Map<String, String> premanagedProperties,
                               int managedBits, Dependency managedDependency, boolean premanagedState )
+        {
+            this( premanagedVersion, premanagedScope, premanagedOptional,
+                  premanagedExclusions != null
+                      ? Collections.unmodifiableCollection( new ArrayList<>( premanagedExclusions ) )
+                      : null,
+                  premanagedProperties != null
+                      ? Collections.unmodifiableMap( new HashMap<>( premanagedProperties ) )
+                      : null,
+                  managedBits, managedDependency, premanagedState, false );
+        }
+
+        /**
+         * With {@code reduced}, premanaged exclusions and properties are stored as given, they're already read-only
+         * views provided by {@link Dependency#getExclusions()} and {@link Artifact#getProperties()}.
+         */
+        @SuppressWarnings( "checkstyle:parameternumber" )
+        private PremanagedDependency( String premanagedVersion, String premanagedScope, Boolean premanagedOptional,
+                                      Collection<Exclusion> premanagedExclusions,
+                                      Map<String, String> premanagedProperties, int managedBits,
+                                      Dependency managedDependency, boolean premanagedState, boolean reduced )
         {
             this.premanagedVersion = premanagedVersion;
             this.premanagedScope = premanagedScope;
             this.premanagedOptional = premanagedOptional;
-            this.premanagedExclusions =
-                premanagedExclusions != null
-                    ? Collections.unmodifiableCollection( new ArrayList<>( premanagedExclusions ) )
-                    : null;
-
-            this.premanagedProperties =
-                premanagedProperties != null
-                    ? Collections.unmodifiableMap( new HashMap<>( premanagedProperties ) )
-                    : null;
+            this.premanagedExclusions = premanagedExclusions;
+            this.premanagedProperties = premanagedProperties;
 
             this.managedBits = managedBits;
             this.managedDependency = managedDependency;
             this.premanagedState = premanagedState;
+            this.reduced = reduced;
         }
 
+        /**
+         * With {@code reduceAllocations}, premanaged values equal to the managed ones are not recorded and premanaged
+         * exclusions and properties are not copied.
+         */
+        @SuppressWarnings( "checkstyle:cyclomaticcomplexity" )
         static PremanagedDependency create( DependencyManager depManager, Dependency dependency,
-                                            boolean disableVersionManagement, boolean premanagedState )
+                                            boolean disableVersionManagement, boolean premanagedState,
+                                            boolean reduceAllocations )
         {
             DependencyManagement depMngt = depManager != null ? depManager.manageDependency( dependency ) : null;
 
@@ -880,6 +1034,33 @@ public class DefaultDependencyCollector
                     managedBits |= DependencyNode.MANAGED_EXCLUSIONS;
                 }
             }
+            if ( reduceAllocations )
+            {
+                if ( premanagedVersion != null && premanagedVersion.equals( depMngt.getVersion() ) )
+                {
+                    premanagedVersion = null;
+                }
+                if ( premanagedScope != null && premanagedScope.equals( depMngt.getScope() ) )
+                {
+                    premanagedScope = null;
+                }
+                if ( premanagedOptional != null && premanagedOptional.equals( depMngt.getOptional() ) )
+                {
+                    premanagedOptional = null;
+                }
+                if ( premanagedExclusions != null && premanagedExclusions.equals( dependency.getExclusions() ) )
+                {
+                    premanagedExclusions = null;
+                }
+                if ( premanagedProperties != null
+                    && premanagedProperties.equals( dependency.getArtifact().getProperties() ) )
+                {
+                    premanagedProperties = null;
+                }
+                return new PremanagedDependency( premanagedVersion, premanagedScope, premanagedOptional,
+                                                 premanagedExclusions, premanagedProperties, managedBits, dependency,
+                                                 premanagedState, true );
+            }
             return new PremanagedDependency( premanagedVersion, premanagedScope, premanagedOptional,
                                              premanagedExclusions, premanagedProperties, managedBits, dependency,
                                              premanagedState );
@@ -889,7 +1070,16 @@ public class DefaultDependencyCollector
         public void applyTo( DefaultDependencyNode child )
         {
             child.setManagedBits( managedBits );
-            if ( premanagedState )
+            if ( premanagedState && reduced )
+            {
+                // only store values which differ from the managed ones
+                setData( child, DependencyManagerUtils.NODE_DATA_PREMANAGED_VERSION, premanagedVersion );
+                setData( child, DependencyManagerUtils.NODE_DATA_PREMANAGED_SCOPE, premanagedScope );
+                setData( child, DependencyManagerUtils.NODE_DATA_PREMANAGED_OPTIONAL, premanagedOptional );
+                setData( child, DependencyManagerUtils.NODE_DATA_PREMANAGED_EXCLUSIONS, premanagedExclusions );
+                setData( child, DependencyManagerUtils.NODE_DATA_PREMANAGED_PROPERTIES, premanagedProperties );
+            }
+            else if ( premanagedState )
             {
                 child.setData( DependencyManagerUtils.NODE_DATA_PREMANAGED_VERSION, premanagedVersion );
                 child.setData( DependencyManagerUtils.NODE_DATA_PREMANAGED_SCOPE, premanagedScope );
@@ -899,6 +1089,14 @@ public class DefaultDependencyCollector
             }
         }
 
+        private static void setData( DefaultDependencyNode child, Object key, Object value )
+        {
+            if ( value != null )
+            {
+                child.setData( key, value );
+            }
+        }
+
     }
 
 }
@@ -0,0 +1,274 @@
+package org.eclipse.aether.internal.impl.collect;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.graph.Exclusion;
+import org.eclipse.aether.util.ConfigUtils;
+
+/**
+ * Approximate heap footprint of the data structures used by dependency collection. Sizes are estimated from entry
+ * counts and a sample of entries, assuming a 64-bit JVM with compressed references and compact strings. Shared
+ * instances (e.g. interned artifacts referenced from descriptors) are counted by each structure referencing them, so
+ * the numbers are an upper bound of what each structure retains on its own.
+ */
+public final class Footprint
+{
+
+    /**
+     * Boolean flag enabling footprint estimation at the end of each collection (and of the session).
+     */
+    public static final String CONFIG_PROP_FOOTPRINT = "aether.dependencyCollector.footprint";
+
+    private static final int SAMPLE_SIZE = 64;
+
+    // CHECKSTYLE_OFF: MagicNumber
+    private static final int OBJECT = 16;
+
+    private static final int REF = 4;
+
+    private static final int MAP_ENTRY = 40;
+
+    private static final int WEAK_ENTRY = 48 + 32;
+
+    private static final int LIST = 40;
+
+    private static final int STRING = 24 + 16;
+
+    private static final int ARTIFACT = OBJECT + 7 * REF;
+
+    private static final int DEPENDENCY = OBJECT + 4 * REF;
+
+    private static final int NODE = OBJECT + 14 * REF + 8;
+    // CHECKSTYLE_ON: MagicNumber
+
+    private Footprint()
+    {
+        // hide constructor
+    }
+
+    public static boolean isEnabled( RepositorySystemSession session )
+    {
+        return ConfigUtils.getBoolean( session, false, CONFIG_PROP_FOOTPRINT );
+    }
+
+    /**
+     * Estimates session-scoped structures: artifact and dependency pools and the descriptor cache.
+     */
+    public static Map<String, Object> estimate( RepositorySystemSession session )
+    {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        DataPool pool = new DataPool( session, false );
+        estimateSessionScoped( pool, stats );
+        return stats;
+    }
+
+    static Map<String, Object> estimate( DataPool pool, DependencyNode root )
+    {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        estimateSessionScoped( pool, stats );
+
+        Map<Object, DataPool.Constraint> constraints = pool.getConstraints();
+        long constraintBytes = 0L;
+        int sampled = 0;
+        for ( DataPool.Constraint constraint : constraints.values() )
+        {
+            if ( sampled >= SAMPLE_SIZE )
+            {
+                break;
+            }
+            sampled++;
+            // CHECKSTYLE_OFF: MagicNumber
+            constraintBytes += OBJECT + 2 * REF + 16 + constraint.repositories.length * ( REF + OBJECT + 2 * REF + 64 );
+            // CHECKSTYLE_ON: MagicNumber
+        }
+        put( stats, "DataPool.constraints", constraints.size(),
+             extrapolate( constraintBytes, sampled, constraints.size(), MAP_ENTRY + OBJECT + 3 * REF ) );
+
+        Map<Object, List<DependencyNode>> nodes = pool.getNodes();
+        long nodeBytes = 0L;
+        sampled = 0;
+        for ( List<DependencyNode> children : nodes.values() )
+        {
+            if ( sampled >= SAMPLE_SIZE )
+            {
+                break;
+            }
+            sampled++;
+            nodeBytes += LIST + children.size() * REF;
+        }
+        put( stats, "DataPool.nodes", nodes.size(),
+             extrapolate( nodeBytes, sampled, nodes.size(), MAP_ENTRY + OBJECT + 7 * REF ) );
+
+        if ( root != null )
+        {
+            int count = 0;
+            long bytes = 0L;
+            Set<DependencyNode> visited = Collections.newSetFromMap( new IdentityHashMap<DependencyNode, Boolean>() );
+            Deque<DependencyNode> queue = new ArrayDeque<>();
+            queue.add( root );
+            while ( !queue.isEmpty() )
+            {
+                DependencyNode node = queue.poll();
+                if ( !visited.add( node ) )
+                {
+                    continue;
+                }
+                count++;
+                bytes += NODE + LIST + node.getChildren().size() * REF + node.getData().size() * MAP_ENTRY;
+                queue.addAll( node.getChildren() );
+            }
+            put( stats, "graph.nodes", count, bytes );
+        }
+        return stats;
+    }
+
+    private static void estimateSessionScoped( DataPool pool, Map<String, Object> stats )
+    {
+        ObjectPool<Artifact> artifacts = pool.getArtifactPool();
+        int artifactCount = artifacts.size();
+        long bytes = 0L;
+        List<Artifact> artifactSample = artifacts.sample( SAMPLE_SIZE );
+        for ( Artifact artifact : artifactSample )
+        {
+            bytes += sizeOf( artifact );
+        }
+        put( stats, "ObjectPool.artifacts", artifactCount,
+             extrapolate( bytes, artifactSample.size(), artifactCount, WEAK_ENTRY ) );
+
+        ObjectPool<Dependency> dependencies = pool.getDependencyPool();
+        int dependencyCount = dependencies.size();
+        bytes = 0L;
+        List<Dependency> dependencySample = dependencies.sample( SAMPLE_SIZE );
+        for ( Dependency dependency : dependencySample )
+        {
+            // the artifact is interned and accounted for by the artifact pool
+            bytes += sizeOf( dependency, false );
+        }
+        put( stats, "ObjectPool.dependencies", dependencyCount,
+             extrapolate( bytes, dependencySample.size(), dependencyCount, WEAK_ENTRY ) );
+
+        Map<Object, DataPool.Descriptor> descriptors = pool.getDescriptors();
+        List<DataPool.Descriptor> descriptorSample = new ArrayList<>( SAMPLE_SIZE );
+        int descriptorCount;
+        synchronized ( descriptors )
+        {
+            descriptorCount = descriptors.size();
+            for ( DataPool.Descriptor descriptor : descriptors.values() )
+            {
+                if ( descriptorSample.size() >= SAMPLE_SIZE )
+                {
+                    break;
+                }
+                descriptorSample.add( descriptor );
+            }
+        }
+        bytes = 0L;
+        for ( DataPool.Descriptor descriptor : descriptorSample )
+        {
+            bytes += sizeOf( descriptor );
+        }
+        put( stats, "DataPool.descriptors", descriptorCount,
+             extrapolate( bytes, descriptorSample.size(), descriptorCount, WEAK_ENTRY ) );
+    }
+
+    private static long extrapolate( long sampleBytes, int sampleSize, int count, int perEntry )
+    {
+        if ( sampleSize <= 0 )
+        {
+            return (long) count * perEntry;
+        }
+        return ( sampleBytes / sampleSize + perEntry ) * count;
+    }
+
+    private static void put( Map<String, Object> stats, String name, int count, long bytes )
+    {
+        stats.put( name, count );
+        stats.put( name + ".bytes", bytes );
+    }
+
+    private static long sizeOf( DataPool.Descriptor descriptor )
+    {
+        if ( !( descriptor instanceof DataPool.GoodDescriptor ) )
+        {
+            return 0L;
+        }
+        DataPool.GoodDescriptor good = (DataPool.GoodDescriptor) descriptor;
+        long size = OBJECT + 6 * REF + sizeOf( good.artifact );
+        size += sizeOf( good.dependencies ) + sizeOf( good.managedDependencies );
+        size += LIST + REF * ( good.relocations.size() + good.aliases.size() + good.repositories.size() );
+        return size;
+    }
+
+    private static long sizeOf( Collection<Dependency> dependencies )
+    {
+        long size = LIST;
+        for ( Dependency dependency : dependencies )
+        {
+            size += REF + sizeOf( dependency, true );
+        }
+        return size;
+    }
+
+    private static long sizeOf( Dependency dependency, boolean withArtifact )
+    {
+        long size = DEPENDENCY;
+        if ( withArtifact )
+        {
+            size += sizeOf( dependency.getArtifact() );
+        }
+        for ( Exclusion exclusion : dependency.getExclusions() )
+        {
+            size += REF + OBJECT + 4 * REF + sizeOf( exclusion.getGroupId() ) + sizeOf( exclusion.getArtifactId() );
+        }
+        return size;
+    }
+
+    private static long sizeOf( Artifact artifact )
+    {
+        long size = ARTIFACT + sizeOf( artifact.getGroupId() ) + sizeOf( artifact.getArtifactId() )
+            + sizeOf( artifact.getVersion() ) + sizeOf( artifact.getClassifier() ) + sizeOf( artifact.getExtension() );
+        for ( Map.Entry<String, String> e : artifact.getProperties().entrySet() )
+        {
+            size += MAP_ENTRY + sizeOf( e.getKey() ) + sizeOf( e.getValue() );
+        }
+        return size;
+    }
+
+    private static long sizeOf( String s )
+    {
+        return s == null || s.isEmpty() ? 0L : STRING + s.length();
+    }
+
+}
@@ -21,6 +21,8 @@ package org.eclipse.aether.internal.impl.collect;
 
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
 
@@ -49,4 +51,30 @@ class ObjectPool<T>
         return object;
     }
 
+    public synchronized int size()
+    {
+        return objects.size();
+    }
+
+    /**
+     * Returns up to {@code max} pooled objects, e.g. to estimate the memory used by the pool.
+     */
+    public synchronized List<T> sample( int max )
+    {
+        List<T> sample = new ArrayList<>( Math.min( max, objects.size() ) );
+        for ( Reference<T> ref : objects.values() )
+        {
+            if ( sample.size() >= max )
+            {
+                break;
+            }
+            T object = ref.get();
+            if ( object != null )
+            {
+                sample.add( object );
+            }
+        }
+        return sample;
+    }
+
 }
@@ -0,0 +1,134 @@
+package org.eclipse.aether.internal.impl.collect;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.aether.RepositoryCache;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.resolution.ArtifactDescriptorResult;
+
+/**
+ * Session-scoped record of artifacts whose descriptors and version ranges were needed by dependency collection. When
+ * installed in the {@link RepositoryCache} of a session, {@link DataPool} reports every descriptor and version range it
+ * caches. Descriptors loaded ahead of time (e.g. from the manifest of a previous build) can be put into the session
+ * descriptor cache with a {@link #preloader(RepositorySystemSession) preloader}.
+ */
+public final class ResolutionManifest
+{
+
+    private static final String KEY = ResolutionManifest.class.getName();
+
+    private final Set<Artifact> descriptors = Collections.newSetFromMap( new ConcurrentHashMap<Artifact, Boolean>() );
+
+    private final Set<Artifact> ranges = Collections.newSetFromMap( new ConcurrentHashMap<Artifact, Boolean>() );
+
+    private final Set<Artifact> preloaded = Collections.newSetFromMap( new ConcurrentHashMap<Artifact, Boolean>() );
+
+    private ResolutionManifest()
+    {
+    }
+
+    /**
+     * Creates a manifest and makes it visible to dependency collection performed with given session.
+     */
+    public static ResolutionManifest install( RepositorySystemSession session )
+    {
+        ResolutionManifest manifest = new ResolutionManifest();
+        RepositoryCache cache = session.getCache();
+        if ( cache != null )
+        {
+            cache.put( session, KEY, manifest );
+        }
+        return manifest;
+    }
+
+    /**
+     * Returns the manifest installed for given session or {@code null}.
+     */
+    public static ResolutionManifest get( RepositorySystemSession session )
+    {
+        RepositoryCache cache = session.getCache();
+        return cache != null ? (ResolutionManifest) cache.get( session, KEY ) : null;
+    }
+
+    /**
+     * Returns a preloader putting descriptors read outside of dependency collection into the session descriptor cache.
+     * The preloader is created once (before any descriptor is read) and shared by all reading threads, so they all
+     * fill the same cache.
+     */
+    public Preloader preloader( RepositorySystemSession session )
+    {
+        return new Preloader( new DataPool( session, false ) );
+    }
+
+    void descriptorNeeded( Artifact artifact )
+    {
+        descriptors.add( artifact );
+    }
+
+    void rangeNeeded( Artifact artifact )
+    {
+        ranges.add( artifact );
+    }
+
+    /**
+     * Artifacts (with ranges as their versions) of all version ranges resolved so far.
+     */
+    public Set<Artifact> getRanges()
+    {
+        return Collections.unmodifiableSet( ranges );
+    }
+
+    /**
+     * Artifacts of all descriptors looked up by dependency collection so far, whether read or found in the cache.
+     */
+    public Set<Artifact> getDescriptors()
+    {
+        return Collections.unmodifiableSet( descriptors );
+    }
+
+    /**
+     * Puts descriptors into the session descriptor cache. The artifact of the descriptor request is the cache key, so
+     * it has to carry the same properties as the artifact used during collection. As the descriptor cache holds its
+     * keys weakly, the manifest keeps them reachable until the session ends.
+     */
+    public final class Preloader
+    {
+
+        private final DataPool pool;
+
+        Preloader( DataPool pool )
+        {
+            this.pool = pool;
+        }
+
+        public void preload( ArtifactDescriptorResult result )
+        {
+            pool.preloadDescriptor( pool.toKey( result.getRequest() ), result );
+            preloaded.add( result.getRequest().getArtifact() );
+        }
+
+    }
+
+}
@@ -0,0 +1,246 @@
+package org.eclipse.aether.internal.impl.collect;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Recorder of spans (collections, descriptor reads, version ranges, downloads, tracking writes, ...) written as a
+ * Chrome trace-event JSON file, viewable in {@code chrome://tracing} or Perfetto. Each thread appends complete spans
+ * to its own buffer under the (uncontended) monitor of the buffer. Buffers are registered once per thread in a
+ * lock-free queue and merged only when the trace is written, after the recording is stopped. Writing takes the spans
+ * out of the buffers and forgets the buffers, so spans of a written trace aren't kept (e.g. in a daemon JVM) until the
+ * next recording, and a span appended late by a thread which passed the recording check before the recording was
+ * stopped is dropped.
+ */
+public final class TraceRecorder
+{
+
+    private static volatile boolean recording;
+
+    private static volatile long origin;
+
+    private static volatile int generation;
+
+    private static final Queue<Buffer> BUFFERS = new ConcurrentLinkedQueue<>();
+
+    /** Buffer of the thread, a closed (empty) buffer of an older recording is replaced on the next span. */
+    private static final ThreadLocal<Buffer> BUFFER = new ThreadLocal<>();
+
+    private TraceRecorder()
+    {
+        // hide constructor
+    }
+
+    /**
+     * Starts a new recording, dropping spans of the previous one.
+     */
+    public static synchronized void start()
+    {
+        BUFFERS.clear();
+        generation++;
+        origin = System.nanoTime();
+        recording = true;
+    }
+
+    /**
+     * Stops the recording, spans recorded until now can be written.
+     */
+    public static synchronized void stop()
+    {
+        recording = false;
+    }
+
+    public static boolean isRecording()
+    {
+        return recording;
+    }
+
+    /**
+     * Records a span of the current thread, started and ended at given {@link System#nanoTime()} values.
+     */
+    public static void span( String name, String category, long start, long end, Object coordinates, String detail )
+    {
+        if ( !recording )
+        {
+            return;
+        }
+        Buffer buffer = BUFFER.get();
+        if ( buffer == null || buffer.generation != generation )
+        {
+            Thread thread = Thread.currentThread();
+            buffer = new Buffer( generation, thread.getId(), thread.getName() );
+            BUFFER.set( buffer );
+            BUFFERS.add( buffer );
+        }
+        Span span = new Span( name, category, start, end - start,
+                              coordinates == null ? null : coordinates.toString(), detail );
+        synchronized ( buffer )
+        {
+            if ( buffer.spans != null )
+            {
+                buffer.spans.add( span );
+            }
+        }
+    }
+
+    /**
+     * Writes spans of the stopped recording as a Chrome trace-event JSON file. The spans are written once, later calls
+     * write an empty trace.
+     */
+    public static synchronized void write( File file )
+        throws IOException
+    {
+        List<Buffer> buffers = new ArrayList<>();
+        List<List<Span>> spans = new ArrayList<>();
+        for ( Buffer buffer; ( buffer = BUFFERS.poll() ) != null; )
+        {
+            // closing the buffer under its monitor publishes all its spans and drops later appends
+            synchronized ( buffer )
+            {
+                buffers.add( buffer );
+                spans.add( buffer.spans );
+                buffer.spans = null;
+            }
+        }
+        File dir = file.getAbsoluteFile().getParentFile();
+        if ( dir != null && !dir.mkdirs() && !dir.isDirectory() )
+        {
+            throw new IOException( "Can't create directory " + dir );
+        }
+        long base = origin;
+        try ( Writer writer = new BufferedWriter( Files.newBufferedWriter( file.toPath(), StandardCharsets.UTF_8 ) ) )
+        {
+            writer.write( "{\"displayTimeUnit\":\"ms\",\"traceEvents\":[" );
+            boolean first = true;
+            for ( int i = 0; i < buffers.size(); i++ )
+            {
+                Buffer buffer = buffers.get( i );
+                writer.write( first ? "\n" : ",\n" );
+                first = false;
+                writer.write( "{\"ph\":\"M\",\"name\":\"thread_name\",\"pid\":1,\"tid\":" + buffer.threadId
+                                  + ",\"args\":{\"name\":" + quote( buffer.threadName ) + "}}" );
+                for ( Span span : spans.get( i ) )
+                {
+                    writer.write( ",\n{\"ph\":\"X\",\"pid\":1,\"tid\":" + buffer.threadId + ",\"name\":"
+                                      + quote( span.coordinates != null ? span.name + " " + span.coordinates
+                                                   : span.name )
+                                      + ",\"cat\":" + quote( span.category )
+                                      + ",\"ts\":" + micros( span.start - base )
+                                      + ",\"dur\":" + micros( span.duration ) );
+                    if ( span.detail != null )
+                    {
+                        writer.write( ",\"args\":{\"detail\":" + quote( span.detail ) + "}" );
+                    }
+                    writer.write( "}" );
+                }
+            }
+            writer.write( "\n]}\n" );
+        }
+    }
+
+    private static String micros( long nanos )
+    {
+        return String.format( "%d.%03d", nanos / 1000L, Math.abs( nanos % 1000L ) );
+    }
+
+    private static String quote( String value )
+    {
+        if ( value == null )
+        {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder( value.length() + 2 ).append( '"' );
+        for ( int i = 0; i < value.length(); i++ )
+        {
+            char c = value.charAt( i );
+            if ( c == '"' || c == '\\' )
+            {
+                sb.append( '\\' ).append( c );
+            }
+            else if ( c < ' ' )
+            {
+                sb.append( String.format( "\\u%04x", (int) c ) );
+            }
+            else
+            {
+                sb.append( c );
+            }
+        }
+        return sb.append( '"' ).toString();
+    }
+
+    private static final class Buffer
+    {
+        final int generation;
+
+        final long threadId;
+
+        final String threadName;
+
+        /**
+         * Appended only by the owning thread, taken (and set to {@code null}) when the trace is written. Guarded by
+         * the monitor of the buffer.
+         */
+        List<Span> spans = new ArrayList<>( 256 );
+
+        Buffer( int generation, long threadId, String threadName )
+        {
+            this.generation = generation;
+            this.threadId = threadId;
+            this.threadName = threadName;
+        }
+    }
+
+    private static final class Span
+    {
+        final String name;
+
+        final String category;
+
+        final long start;
+
+        final long duration;
+
+        final String coordinates;
+
+        final String detail;
+
+        Span( String name, String category, long start, long duration, String coordinates, String detail )
+        {
+            this.name = name;
+            this.category = category;
+            this.start = start;
+            this.duration = duration;
+            this.coordinates = coordinates;
+            this.detail = detail;
+        }
+    }
+
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2022 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.tools.maven.tracker;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.Deflater;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Block-compressed storage of tracker records, used instead of {@code .tracking/} directories when
+ * {@code tracking.storage=blocks}. A record is the content of a {@code .dep}/{@code .miss} tracker file together with
+ * the tracked artifact (the key) and the tracker name.
+ *
+ * Records are collected in memory, sorted by key and written as {@link Deflater}-compressed blocks of about 64 KiB
+ * (uncompressed) appended to {@code tracking.blk} in {@link ReverseIndex#INDEX_DIR}. For each block, a
+ * tab-separated {@code offset, compressed length, length, first key, last key} line is appended to
+ * {@code tracking.bix}, so a query ({@link BlockStoreQuery}) only inflates blocks whose key range may contain the
+ * queried artifacts. As with {@code .tracking/} directories, a tracker is stored again only when its chain ID (see
+ * {@link ChainStore}) changes - {@code key, name, chain ID} lines of stored records are kept in a {@link SortedIndex}
+ * {@code tracking.names} and records already stored by previous builds with the same chain ID are dropped when a
+ * block is written. A record with a new chain ID supersedes the older ones, {@link BlockStoreQuery} returns the
+ * newest. A chain which changes back to one stored before isn't stored again, so the query returns the newer one
+ * until another chain appears.
+ */
+public class BlockStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BlockStore.class);
+
+    public static final String BLOCKS = "tracking.blk";
+    public static final String BLOCK_INDEX = "tracking.bix";
+    public static final String NAMES = "tracking.names";
+
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    private final File dir;
+    private final SortedIndex names;
+    private final Set<String> known = new HashSet<>();
+    private final TreeMap<String, Map<String, String>> pending = new TreeMap<>();
+    private int pendingSize;
+
+    public BlockStore(File localRepository) {
+        this.dir = new File(localRepository, ReverseIndex.INDEX_DIR);
+        this.names = new SortedIndex(new File(dir, NAMES));
+    }
+
+    /**
+     * Records a tracker of given artifact with the ID of its chain, unless the same tracker was already recorded
+     * during the session.
+     */
+    public synchronized void record(String key, String name, String chain, String content) {
+        if (!known.add(key + '\t' + name)) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append(key).append('\t').append(name).append('\t');
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        sb.append(bytes.length).append('\n').append(content);
+        Map<String, String> records = pending.get(key);
+        if (records == null) {
+            records = new TreeMap<>();
+            pending.put(key, records);
+        }
+        // records are pending by "name<TAB>chain", the way their lines are stored in tracking.names
+        records.put(name + '\t' + chain, sb.toString());
+        pendingSize += sb.length();
+        if (pendingSize >= BLOCK_SIZE) {
+            try {
+                flush();
+            } catch (IOException e) {
+                LOG.debug("Can't write tracking blocks to {}: {}", dir, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Number of characters of records not written yet.
+     */
+    public synchronized int getPending() {
+        return pendingSize;
+    }
+
+    /**
+     * Writes records not written yet as a last block.
+     */
+    public synchronized void close() {
+        try {
+            flush();
+        } catch (IOException e) {
+            LOG.debug("Can't write tracking blocks to {}: {}", dir, e.getMessage());
+        }
+    }
+
+    private void flush() throws IOException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<String> batch = new ArrayList<>();
+        for (Map.Entry<String, Map<String, String>> e : pending.entrySet()) {
+            for (String name : e.getValue().keySet()) {
+                batch.add(e.getKey() + '\t' + name);
+            }
+        }
+        Collections.sort(batch);
+        TreeMap<String, Map<String, String>> records = new TreeMap<>(pending);
+        pending.clear();
+        pendingSize = 0;
+
+        if (!dir.mkdirs() && !dir.isDirectory()) {
+            throw new IOException("Can't create directory " + dir);
+        }
+        // blocks and names are updated under the lock of the data file, so concurrent builds store a record once
+        synchronized (BlockStore.class) {
+            FileChannel lock = TrackingFiles.lock(new File(dir, BLOCKS + ".lock"));
+            try {
+                List<String> absent = names.absent(batch);
+                Set<String> stored = new HashSet<>(absent);
+                StringBuilder block = new StringBuilder();
+                String firstKey = null;
+                String lastKey = null;
+                for (Map.Entry<String, Map<String, String>> e : records.entrySet()) {
+                    for (Map.Entry<String, String> record : e.getValue().entrySet()) {
+                        if (stored.contains(e.getKey() + '\t' + record.getKey())) {
+                            block.append(record.getValue());
+                            firstKey = firstKey == null ? e.getKey() : firstKey;
+                            lastKey = e.getKey();
+                        }
+                    }
+                }
+                if (block.length() > 0) {
+                    write(block.toString(), firstKey, lastKey);
+                    names.add(absent);
+                }
+            } finally {
+                lock.close();
+            }
+        }
+    }
+
+    /**
+     * Appends a compressed block and its line of the block index. Called with the data file locked, so the offset is
+     * still the end of the file when the block is appended.
+     */
+    private void write(String block, String firstKey, String lastKey) throws IOException {
+        byte[] raw = block.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(raw.length / 4);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                compressed.write(buffer, 0, n);
+            }
+        } finally {
+            deflater.end();
+        }
+
+        try (FileChannel channel = FileChannel.open(new File(dir, BLOCKS).toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE)) {
+            long offset = channel.size();
+            ByteBuffer buffer = ByteBuffer.wrap(compressed.toByteArray());
+            channel.position(offset);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            TrackingFiles.written(compressed.size());
+            TrackingFiles.append(new File(dir, BLOCK_INDEX), String.format("%d\t%d\t%d\t%s\t%s\n", offset,
+                    compressed.size(), raw.length, firstKey, lastKey));
+        }
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2022 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.tools.maven.tracker;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Command line tool printing trackers stored in the {@link BlockStore} of a local repository:
+ *
+ * <pre>
+ * java -cp tracking-maven-extension.jar org.ops4j.tools.maven.tracker.BlockStoreQuery \
+ *     [-r &lt;local repository&gt;] groupId[:artifactId[:extension...]] ...
+ * </pre>
+ *
+ * Trackers of all artifacts whose coordinates start with given prefix are printed in the {@code .dep} file format,
+ * preceded by the tracker name. Only the JDK is needed on the class path.
+ */
+public class BlockStoreQuery {
+
+    public static void main(String[] args) throws IOException {
+        File repository = new File(System.getProperty("user.home"), ".m2/repository");
+        int i = 0;
+        if (args.length >= 2 && "-r".equals(args[0])) {
+            repository = new File(args[1]);
+            i = 2;
+        }
+        if (i >= args.length) {
+            System.err.println("Usage: BlockStoreQuery [-r <local repository>] groupId[:artifactId[:extension...]] ...");
+            System.exit(1);
+        }
+        for (; i < args.length; i++) {
+            for (Record record : query(repository, args[i])) {
+                System.out.printf("== %s%n%s%n", record.getName(), record.getContent());
+            }
+        }
+    }
+
+    /**
+     * Reads records of artifacts whose coordinates start with {@code prefix}, inflating only blocks whose key range
+     * overlaps the prefix. A tracker stored more than once (e.g. with a new chain ID, or by concurrent builds) is
+     * returned once, with the content stored last.
+     */
+    public static List<Record> query(File localRepository, String prefix) throws IOException {
+        File dir = new File(localRepository, ReverseIndex.INDEX_DIR);
+        Map<String, Record> result = new LinkedHashMap<>();
+        String upper = prefix + '\uffff';
+        List<long[]> blocks = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(new File(dir, BlockStore.BLOCK_INDEX).toPath(),
+                StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t");
+                if (fields.length < 5 || fields[4].compareTo(prefix) < 0 || fields[3].compareTo(upper) > 0) {
+                    continue;
+                }
+                blocks.add(new long[] { Long.parseLong(fields[0]), Long.parseLong(fields[1]),
+                        Long.parseLong(fields[2]) });
+            }
+        } catch (NoSuchFileException e) {
+            return Collections.emptyList();
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(new File(dir, BlockStore.BLOCKS), "r")) {
+            for (long[] block : blocks) {
+                byte[] compressed = new byte[(int) block[1]];
+                file.seek(block[0]);
+                file.readFully(compressed);
+                byte[] raw = new byte[(int) block[2]];
+                Inflater inflater = new Inflater();
+                try {
+                    inflater.setInput(compressed);
+                    int n = 0;
+                    while (n < raw.length && !inflater.finished()) {
+                        n += inflater.inflate(raw, n, raw.length - n);
+                    }
+                } catch (DataFormatException e) {
+                    throw new IOException("Corrupted block at " + block[0] + ": " + e.getMessage(), e);
+                } finally {
+                    inflater.end();
+                }
+                parse(raw, prefix, result);
+            }
+        }
+        return new ArrayList<>(result.values());
+    }
+
+    /**
+     * Puts records of the block with keys starting with {@code prefix} into {@code result}, replacing records of the
+     * same tracker read from older blocks.
+     */
+    private static void parse(byte[] raw, String prefix, Map<String, Record> result) {
+        int pos = 0;
+        while (pos < raw.length) {
+            int eol = pos;
+            while (eol < raw.length && raw[eol] != '\n') {
+                eol++;
+            }
+            String[] header = new String(raw, pos, eol - pos, StandardCharsets.UTF_8).split("\t");
+            int length = Integer.parseInt(header[2]);
+            if (header[0].startsWith(prefix)) {
+                result.put(header[0] + '\t' + header[1],
+                        new Record(header[0], header[1], new String(raw, eol + 1, length, StandardCharsets.UTF_8)));
+            }
+            pos = eol + 1 + length;
+        }
+    }
+
+    /**
+     * Tracker record: the tracked artifact, tracker name (e.g. {@code g_a_jar_v.dep}) and tracker content.
+     */
+    public static final class Record {
+
+        private final String key;
+        private final String name;
+        private final String content;
+
+        Record(String key, String name, String content) {
+            this.key = key;
+            this.name = name;
+            this.content = content;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getContent() {
+            return content;
+        }
+    }
+
+}
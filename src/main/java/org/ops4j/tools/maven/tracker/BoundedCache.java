@@ -0,0 +1,49 @@
+/*
+ * Copyright 2022 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.tools.maven.tracker;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Concurrent cache holding at most {@code maxSize} entries. When full, it's simply cleared - entries are cheap to
+ * compute again and this avoids any bookkeeping on the (lock-free) read path.
+ */
+class BoundedCache<K, V> {
+
+    private final ConcurrentMap<K, V> map = new ConcurrentHashMap<>();
+    private final int maxSize;
+
+    BoundedCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    V get(K key) {
+        return map.get(key);
+    }
+
+    void put(K key, V value) {
+        if (map.size() >= maxSize) {
+            map.clear();
+        }
+        map.put(key, value);
+    }
+
+    int size() {
+        return map.size();
+    }
+
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2022 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.tools.maven.tracker;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * History of {@link BuildSummary build summaries}, one line per build, oldest first. The summary of a build is
+ * compared with the previous builds and appended when the session ends. Only the most recent
+ * {@link #MAX_BUILDS} builds are kept. Updates of the file are serialized across processes with a lock file.
+ */
+public class BuildHistory {
+
+    /** Number of builds kept in the history file. */
+    public static final int MAX_BUILDS = 100;
+
+    /**
+     * Time values (milliseconds) which changed by less than this are not reported, as they're within the noise of
+     * a build.
+     */
+    static final double MIN_TIME_DELTA = 100d;
+
+    private final File file;
+
+    public BuildHistory(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Compares given summary with the previous {@code builds} builds and appends it to the history.
+     *
+     * @param threshold percents by which a value has to be worse than the median of previous builds to be reported
+     * @return values worse than in the previous builds, empty when there are no previous builds
+     */
+    public List<Regression> append(BuildSummary summary, int builds, double threshold) throws IOException {
+        synchronized (BuildHistory.class) {
+            FileChannel lock = UsageIndex.lock(file);
+            try {
+                List<BuildSummary> history = read(file);
+                List<Regression> regressions = compare(summary,
+                        history.subList(Math.max(0, history.size() - builds), history.size()), threshold);
+                history.add(summary);
+                write(history.subList(Math.max(0, history.size() - MAX_BUILDS), history.size()), file);
+                return regressions;
+            } finally {
+                lock.close();
+            }
+        }
+    }
+
+    /**
+     * Values of given summary worse than the median of the same values of previous summaries by more than
+     * {@code threshold} percents. Values missing in the previous summaries (e.g. new modules) are not compared. Any
+     * increase of a value with zero median (e.g. downloads of a build which usually downloads nothing) is reported.
+     */
+    static List<Regression> compare(BuildSummary summary, List<BuildSummary> previous, double threshold) {
+        List<Regression> regressions = new ArrayList<>();
+        for (Map.Entry<String, Double> e : summary.getValues().entrySet()) {
+            String name = e.getKey();
+            List<Double> values = new ArrayList<>();
+            for (BuildSummary p : previous) {
+                Double value = p.getValues().get(name);
+                if (value != null) {
+                    values.add(value);
+                }
+            }
+            if (values.isEmpty()) {
+                continue;
+            }
+            double baseline = median(values);
+            double current = e.getValue();
+            double worse = BuildSummary.higherIsWorse(name) ? current - baseline : baseline - current;
+            if (worse <= 0d || (baseline > 0d && worse * 100d / baseline <= threshold)) {
+                continue;
+            }
+            if ((name.startsWith(BuildSummary.MODULE_TIME) || name.endsWith("Time")) && worse < MIN_TIME_DELTA) {
+                continue;
+            }
+            regressions.add(new Regression(name, current, baseline, values.size()));
+        }
+        return regressions;
+    }
+
+    /**
+     * Reads the history, oldest build first. Missing file is an empty history.
+     */
+    static List<BuildSummary> read(File file) throws IOException {
+        List<BuildSummary> history = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                BuildSummary summary = line.isEmpty() ? null : BuildSummary.parse(line);
+                if (summary != null) {
+                    history.add(summary);
+                }
+            }
+        } catch (NoSuchFileException ignored) {
+        }
+        return history;
+    }
+
+    /**
+     * Replaces the history atomically, so a concurrent build never reads a partially written file.
+     */
+    static void write(List<BuildSummary> history, File file) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.mkdirs() && !dir.isDirectory()) {
+            throw new IOException("Can't create directory " + dir);
+        }
+        File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(tmp.toPath(), StandardCharsets.UTF_8)) {
+                for (BuildSummary summary : history) {
+                    writer.write(summary.toString());
+                    writer.write('\n');
+                }
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+    }
+
+    private static double median(List<Double> values) {
+        Collections.sort(values);
+        int middle = values.size() / 2;
+        return values.size() % 2 == 1 ? values.get(middle) : (values.get(middle - 1) + values.get(middle)) / 2d;
+    }
+
+    /**
+     * A summary value worse than in previous builds.
+     */
+    public static final class Regression {
+
+        private final String name;
+        private final double current;
+        private final double baseline;
+        private final int builds;
+
+        Regression(String name, double current, double baseline, int builds) {
+            this.name = name;
+            this.current = current;
+            this.baseline = baseline;
+            this.builds = builds;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double getCurrent() {
+            return current;
+        }
+
+        /** Median of the previous builds. */
+        public double getBaseline() {
+            return baseline;
+        }
+
+        @Override
+        public String toString() {
+            if (baseline == 0d) {
+                return String.format("%s: %s (median of %d previous builds %s, +%s)", name,
+                        BuildSummary.format(name, current), builds, BuildSummary.format(name, baseline),
+                        BuildSummary.format(name, current - baseline));
+            }
+            return String.format("%s: %s (median of %d previous builds %s, %+.0f%%)", name,
+                    BuildSummary.format(name, current), builds, BuildSummary.format(name, baseline),
+                    (current - baseline) * 100d / baseline);
+        }
+    }
+
+}
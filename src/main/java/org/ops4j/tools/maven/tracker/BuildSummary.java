@@ -0,0 +1,179 @@
+/*
+ * Copyright 2022 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.tools.maven.tracker;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compact summary of the resolution performance of a build: dependency collection stats and cache hit rates,
+ * downloads, tracking overhead (when measured) and collection time per module (top-level artifact without version, so version bumps
+ * of a module or plugin are still compared). A summary is a line of {@link BuildHistory} - a timestamp followed by
+ * tab-separated {@code name=value} pairs.
+ */
+public class BuildSummary {
+
+    public static final String COLLECTIONS = "collections";
+    public static final String NODES = "nodes";
+    public static final String DESCRIPTOR_HIT_RATE = "descriptorHitRate";
+    public static final String RANGE_HIT_RATE = "rangeHitRate";
+    public static final String COLLECTION_TIME = "collectionTime";
+    public static final String DOWNLOADS = "downloads";
+    public static final String DOWNLOAD_BYTES = "downloadBytes";
+    public static final String DOWNLOAD_TIME = "downloadTime";
+    public static final String TRACKING_TIME = "trackingTime";
+
+    /** Prefix of collection times of modules, followed by {@code groupId:artifactId}. */
+    public static final String MODULE_TIME = "moduleTime:";
+
+    private final long timestamp;
+    private final Map<String, Double> values;
+
+    public BuildSummary(long timestamp, Map<String, Double> values) {
+        this.timestamp = timestamp;
+        this.values = values;
+    }
+
+    /**
+     * Summary of the session of given manager. {@code start} and {@code end} are
+     * {@link org.eclipse.aether.internal.impl.collect.CollectionMetrics#snapshot() snapshots} of collection counters
+     * taken when the session started and ended. Times are in milliseconds.
+     */
+    public static BuildSummary of(TrackingLocalRepositoryManagerFactory.TrackingLocalRepositoryManager lrm,
+            long[] start, long[] end, long timestamp) {
+        Map<String, Double> values = new LinkedHashMap<>();
+        values.put(COLLECTIONS, (double) (end[0] - start[0]));
+        values.put(NODES, (double) (end[1] - start[1]));
+        rate(values, DESCRIPTOR_HIT_RATE, end[2] - start[2], end[3] - start[3]);
+        rate(values, RANGE_HIT_RATE, end[4] - start[4], end[5] - start[5]);
+        values.put(COLLECTION_TIME, millis(lrm.getOverhead().getCollectionTime()));
+        long downloads = 0L;
+        long bytes = 0L;
+        long nanos = 0L;
+        for (DownloadStats.Repository repository : lrm.getDownloadStats().getRepositories()) {
+            LatencyHistogram[] histograms = { repository.getArtifacts(), repository.getMetadata() };
+            for (LatencyHistogram histogram : histograms) {
+                downloads += histogram.getCount();
+                bytes += histogram.getBytes();
+                nanos += histogram.getSum();
+            }
+        }
+        values.put(DOWNLOADS, (double) downloads);
+        values.put(DOWNLOAD_BYTES, (double) bytes);
+        values.put(DOWNLOAD_TIME, millis(nanos));
+        if (lrm.getOverhead().isMeasured()) {
+            values.put(TRACKING_TIME, millis(lrm.getOverhead().getOverheadTime()));
+        }
+        for (ResolutionCost.Cost cost : lrm.getResolutionCost().mostExpensive(Integer.MAX_VALUE)) {
+            if (cost.getCollection() > 0) {
+                String key = MODULE_TIME + module(cost.getRoot());
+                Double previous = values.get(key);
+                values.put(key, (previous == null ? 0d : previous) + millis(cost.getCollection()));
+            }
+        }
+        return new BuildSummary(timestamp, values);
+    }
+
+    /**
+     * Parses a line written by {@link #toString()}, returns {@code null} for malformed lines.
+     */
+    public static BuildSummary parse(String line) {
+        String[] fields = line.split("\t");
+        try {
+            long timestamp = Long.parseLong(fields[0]);
+            Map<String, Double> values = new LinkedHashMap<>();
+            for (int i = 1; i < fields.length; i++) {
+                int eq = fields[i].lastIndexOf('=');
+                if (eq > 0) {
+                    values.put(fields[i].substring(0, eq), Double.parseDouble(fields[i].substring(eq + 1)));
+                }
+            }
+            return new BuildSummary(timestamp, values);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public Map<String, Double> getValues() {
+        return Collections.unmodifiableMap(values);
+    }
+
+    /**
+     * Whether a higher value of given summary value is a regression (times, counts) or an improvement (hit rates).
+     */
+    static boolean higherIsWorse(String name) {
+        return !DESCRIPTOR_HIT_RATE.equals(name) && !RANGE_HIT_RATE.equals(name);
+    }
+
+    /**
+     * Human readable value of given summary value.
+     */
+    static String format(String name, double value) {
+        if (DESCRIPTOR_HIT_RATE.equals(name) || RANGE_HIT_RATE.equals(name)) {
+            return String.format("%.1f%%", value * 100d);
+        } else if (DOWNLOAD_BYTES.equals(name)) {
+            return String.format("%.1f MB", value / (1024d * 1024d));
+        } else if (name.startsWith(MODULE_TIME) || name.endsWith("Time")) {
+            return String.format("%.2f s", value / 1000d);
+        }
+        return String.format("%.0f", value);
+    }
+
+    /**
+     * {@code groupId:artifactId} of a {@code groupId:artifactId:version} key of {@link ResolutionCost}.
+     */
+    private static String module(String root) {
+        int colon = root.indexOf(':');
+        int version = colon < 0 ? -1 : root.indexOf(':', colon + 1);
+        return version < 0 ? root : root.substring(0, version);
+    }
+
+    /**
+     * Puts a hit rate, unless there were no lookups to compare.
+     */
+    private static void rate(Map<String, Double> values, String name, long hits, long misses) {
+        if (hits + misses > 0) {
+            values.put(name, hits / (double) (hits + misses));
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder().append(timestamp);
+        for (Map.Entry<String, Double> e : values.entrySet()) {
+            double value = e.getValue();
+            sb.append('\t').append(e.getKey()).append('=');
+            if (value == Math.rint(value)) {
+                sb.append((long) value);
+            } else {
+                sb.append(String.format(Locale.ROOT, "%.4f", value));
+            }
+        }
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2022 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.tools.maven.tracker;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * List of local repository files (relative to the local repository) read or written during the session: artifacts,
+ * their {@code _remote.repositories} files and metadata. CI can save and restore only these files instead of the whole
+ * local repository, e.g. with {@code tar -C ~/.m2/repository -T <manifest>}.
+ */
+public class CacheManifest {
+
+    private static final String REMOTE_REPOSITORIES = "_remote.repositories";
+
+    private final File basedir;
+    private final Set<String> files = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    public CacheManifest(File localRepository) {
+        this.basedir = localRepository;
+    }
+
+    /**
+     * Records an artifact with given path (relative to the local repository). {@code _remote.repositories} of the
+     * artifact's directory is recorded too, as without it the local repository manager doesn't consider a restored
+     * artifact available.
+     */
+    public void artifact(String path) {
+        if (files.add(path)) {
+            int slash = path.lastIndexOf('/');
+            files.add(slash < 0 ? REMOTE_REPOSITORIES : path.substring(0, slash + 1) + REMOTE_REPOSITORIES);
+        }
+    }
+
+    /**
+     * Records a metadata file (with absolute path) from the local repository.
+     */
+    public void metadata(File file) {
+        String path = basedir.toPath().relativize(file.toPath()).toString();
+        if (File.separatorChar != '/') {
+            path = path.replace(File.separatorChar, '/');
+        }
+        if (!path.startsWith("..")) {
+            files.add(path);
+        }
+    }
+
+    /**
+     * Writes sorted paths of recorded files which (still) exist. The file is replaced atomically.
+     */
+    public void write(File file) throws IOException {
+        Set<String> lines = new TreeSet<>();
+        for (String path : files) {
+            if (new File(basedir, path).isFile()) {
+                lines.add(path);
+            }
+        }
+
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.mkdirs() && !dir.isDirectory()) {
+            throw new IOException("Can't create directory " + dir);
+        }
+        File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp.toPath(), StandardCharsets.UTF_8)) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+}
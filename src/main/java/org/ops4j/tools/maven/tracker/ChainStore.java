@@ -0,0 +1,180 @@
+/*
+ * Copyright 2022 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.tools.maven.tracker;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.aether.graph.DependencyNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hash-consed store of dependency chains. Each chain is a {@code (node, parent chain)} pair, so chains sharing a prefix
+ * share its entries and the store is a trie of chains starting at top-level artifacts. The ID of a chain is a 64-bit
+ * FNV-1a hash continued from the ID of its parent chain with the node line, so it's the same in every build and
+ * process sharing the local repository.
+ *
+ * IDs are computed when the collector pushes a node (see {@link TrackingRepositoryListener#chainIds}), so a tracker
+ * references the current chain by its ID without rendering it. Each new entry is appended once to {@code chains.idx}
+ * in {@link ReverseIndex#INDEX_DIR} as a tab-separated {@code id, parent id, node} line ({@code -} is the parent of
+ * top-level artifacts).
+ */
+public class ChainStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ChainStore.class);
+
+    public static final String CHAINS = "chains.idx";
+
+    /** ID of the empty chain - the parent of top-level artifacts. */
+    public static final long ROOT = 0xcbf29ce484222325L;
+
+    private static final long PRIME = 0x100000001b3L;
+
+    private static final int BATCH_SIZE = 8192;
+
+    private final File file;
+    private volatile Set<Long> known;
+    private final StringBuilder pending = new StringBuilder();
+
+    public ChainStore(File localRepository) {
+        this.file = new File(new File(localRepository, ReverseIndex.INDEX_DIR), CHAINS);
+    }
+
+    /**
+     * Returns the ID of a chain extending {@code parent} with {@code node}, storing it if it's not known yet. Known
+     * chains (the common case) are looked up without locking.
+     */
+    public long intern(long parent, DependencyNode node) {
+        String line = line(node);
+        long id = id(parent, line);
+        try {
+            if (known().add(id)) {
+                synchronized (this) {
+                    pending.append(toString(id)).append('\t').append(parent == ROOT ? "-" : toString(parent))
+                            .append('\t').append(line).append('\n');
+                    if (pending.length() >= BATCH_SIZE) {
+                        flush();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LOG.debug("Can't update chain store {}: {}", file, e.getMessage());
+        }
+        return id;
+    }
+
+    /**
+     * Number of characters of chains not written yet.
+     */
+    public synchronized int getPending() {
+        return pending.length();
+    }
+
+    /**
+     * Writes chains not written yet.
+     */
+    public synchronized void close() {
+        try {
+            flush();
+        } catch (IOException e) {
+            LOG.debug("Can't update chain store {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Line of a chain node, as printed in trackers.
+     */
+    static String line(DependencyNode node) {
+        return new StringBuilder(128).append(node.toString()).append(" (context: ").append(node.getRequestContext())
+                .append(')').toString();
+    }
+
+    /**
+     * ID of a chain extending {@code parent} with a node printed as {@code line}.
+     */
+    static long id(long parent, String line) {
+        long hash = parent;
+        for (int i = 0; i < line.length(); i++) {
+            hash ^= line.charAt(i);
+            hash *= PRIME;
+        }
+        hash ^= '\n';
+        hash *= PRIME;
+        return hash;
+    }
+
+    /**
+     * ID as 16 hex digits.
+     */
+    static String toString(long id) {
+        String hex = Long.toHexString(id);
+        return hex.length() == 16 ? hex : "0000000000000000".substring(hex.length()) + hex;
+    }
+
+    private void flush() throws IOException {
+        if (pending.length() == 0) {
+            return;
+        }
+        File dir = file.getParentFile();
+        if (!dir.mkdirs() && !dir.isDirectory()) {
+            throw new IOException("Can't create directory " + dir);
+        }
+        String batch = pending.toString();
+        pending.setLength(0);
+        TrackingFiles.append(file, batch);
+    }
+
+    private Set<Long> known() throws IOException {
+        Set<Long> ids = known;
+        if (ids == null) {
+            synchronized (this) {
+                ids = known;
+                if (ids == null) {
+                    ids = load();
+                    known = ids;
+                }
+            }
+        }
+        return ids;
+    }
+
+    private Set<Long> load() throws IOException {
+        Set<Long> ids = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int tab = line.indexOf('\t');
+                if (tab > 0) {
+                    try {
+                        ids.add(Long.parseUnsignedLong(line.substring(0, tab), 16));
+                    } catch (NumberFormatException ignored) {
+                    }
+                }
+            }
+        } catch (NoSuchFileException ignored) {
+        }
+        return ids;
+    }
+
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2022 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.tools.maven.tracker;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.impl.ArtifactDescriptorReader;
+import org.eclipse.aether.impl.VersionRangeResolver;
+import org.eclipse.aether.internal.impl.collect.ResolutionManifest;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactDescriptorException;
+import org.eclipse.aether.resolution.ArtifactDescriptorRequest;
+import org.eclipse.aether.resolution.ArtifactDescriptorResult;
+import org.eclipse.aether.resolution.VersionRangeRequest;
+import org.eclipse.aether.resolution.VersionRangeResolutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads and writes the resolution manifest - a list of artifact descriptors and version ranges needed by a build - and
+ * uses the manifest of a previous build to load descriptors into the session cache before any project is collected.
+ *
+ * Each line of the manifest is a tab-separated record: {@code D} (descriptor) or {@code R} (version range), artifact
+ * coordinates and then {@code key=value} artifact properties, which are part of the descriptor cache key.
+ */
+public class DescriptorPrewarmer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DescriptorPrewarmer.class);
+
+    private static final String DESCRIPTOR = "D";
+    private static final String RANGE = "R";
+
+    private final ArtifactDescriptorReader descriptorReader;
+    private final VersionRangeResolver versionRangeResolver;
+
+    public DescriptorPrewarmer(ArtifactDescriptorReader descriptorReader, VersionRangeResolver versionRangeResolver) {
+        this.descriptorReader = descriptorReader;
+        this.versionRangeResolver = versionRangeResolver;
+    }
+
+    /**
+     * Reads descriptors and resolves version ranges listed in the manifest using a pool of {@code threads} threads.
+     * Successfully read descriptors are put into the session descriptor cache. Version ranges are not cached by
+     * collection across requests, so resolving them only warms up the resolver's metadata.
+     */
+    public void prewarm(final RepositorySystemSession session, final ResolutionManifest target, File manifest,
+            final List<RemoteRepository> repositories, int threads) throws IOException {
+        Map<String, List<Artifact>> entries = read(manifest);
+        final AtomicInteger loaded = new AtomicInteger();
+        long start = System.nanoTime();
+        // one pool for all threads, so they fill the same descriptor cache
+        final ResolutionManifest.Preloader preloader = target.preloader(session);
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            for (final Artifact artifact : entries.get(DESCRIPTOR)) {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        ArtifactDescriptorRequest request = new ArtifactDescriptorRequest(artifact, repositories, "prewarm");
+                        try {
+                            ArtifactDescriptorResult result = descriptorReader.readArtifactDescriptor(session, request);
+                            preloader.preload(result);
+                            loaded.incrementAndGet();
+                        } catch (ArtifactDescriptorException | RuntimeException e) {
+                            LOG.debug("Can't prewarm descriptor of {}: {}", artifact, e.getMessage());
+                        }
+                    }
+                });
+            }
+            for (final Artifact artifact : entries.get(RANGE)) {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            versionRangeResolver.resolveVersionRange(session,
+                                    new VersionRangeRequest(artifact, repositories, "prewarm"));
+                        } catch (VersionRangeResolutionException | RuntimeException e) {
+                            LOG.debug("Can't prewarm version range of {}: {}", artifact, e.getMessage());
+                        }
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+        }
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        LOG.info("Prewarmed {}/{} artifact descriptors and {} version ranges from {} in {} ms", loaded.get(),
+                entries.get(DESCRIPTOR).size(), entries.get(RANGE).size(), manifest,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Writes sorted manifest records for all descriptors and ranges recorded during the session. The file is
+     * replaced atomically, so a concurrent build never reads a partially written manifest.
+     */
+    public static void write(ResolutionManifest manifest, File file) throws IOException {
+        Map<String, Boolean> lines = new TreeMap<>();
+        for (Artifact artifact : manifest.getDescriptors()) {
+            lines.put(toLine(DESCRIPTOR, artifact), Boolean.TRUE);
+        }
+        for (Artifact artifact : manifest.getRanges()) {
+            lines.put(toLine(RANGE, artifact), Boolean.TRUE);
+        }
+
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.mkdirs() && !dir.isDirectory()) {
+            throw new IOException("Can't create directory " + dir);
+        }
+        File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp.toPath(), StandardCharsets.UTF_8)) {
+            for (String line : lines.keySet()) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static Map<String, List<Artifact>> read(File file) throws IOException {
+        Map<String, List<Artifact>> entries = new LinkedHashMap<>();
+        entries.put(DESCRIPTOR, new ArrayList<Artifact>());
+        entries.put(RANGE, new ArrayList<Artifact>());
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t");
+                List<Artifact> list = entries.get(fields[0]);
+                if (list == null || fields.length < 2) {
+                    continue;
+                }
+                Map<String, String> properties = new LinkedHashMap<>();
+                for (int i = 2; i < fields.length; i++) {
+                    int eq = fields[i].indexOf('=');
+                    if (eq > 0) {
+                        properties.put(fields[i].substring(0, eq), fields[i].substring(eq + 1));
+                    }
+                }
+                try {
+                    list.add(new DefaultArtifact(fields[1], properties));
+                } catch (IllegalArgumentException e) {
+                    LOG.debug("Skipping invalid manifest entry: {}", line);
+                }
+            }
+        }
+        return entries;
+    }
+
+    private static String toLine(String type, Artifact artifact) {
+        StringBuilder sb = new StringBuilder(128);
+        sb.append(type).append('\t').append(artifact);
+        Collection<Map.Entry<String, String>> properties = new TreeMap<>(artifact.getProperties()).entrySet();
+        for (Map.Entry<String, String> e : properties) {
+            sb.append('\t').append(e.getKey()).append('=').append(e.getValue());
+        }
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2022 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.tools.maven.tracker;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Session-scoped cache of directory listings used by tracking writes. Each artifact version directory is listed once
+ * and later checks of its {@code .tracking/} directory and of the tracker files in it are answered from the listings
+ * instead of separate {@code stat} calls. Artifact lookups don't use the listings - the delegate local repository
+ * manager checks the artifact file and its {@code _remote.repositories} itself.
+ *
+ * Writes of the extension keep the listings consistent through {@link #added(File)}. Files written by other processes
+ * are not known, so a missing name only means the extension writes the (idempotent) directory or tracker again.
+ * Missing directories are not cached.
+ */
+public class DirectoryListingCache {
+
+    private final ConcurrentMap<File, Set<String>> listings = new ConcurrentHashMap<>();
+
+    /**
+     * Checks whether given file (or directory) exists, listing its parent directory if it wasn't listed yet.
+     */
+    public boolean exists(File file) {
+        File dir = file.getParentFile();
+        if (dir == null) {
+            return file.exists();
+        }
+        Set<String> names = list(dir);
+        return names != null ? names.contains(file.getName()) : file.exists();
+    }
+
+    /**
+     * Records a file or directory created in a directory that may have been listed already.
+     */
+    public void added(File file) {
+        File dir = file.getParentFile();
+        if (dir != null) {
+            Set<String> names = listings.get(dir);
+            if (names != null) {
+                names.add(file.getName());
+            }
+        }
+    }
+
+    private Set<String> list(File dir) {
+        Set<String> names = listings.get(dir);
+        if (names == null) {
+            names = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir.toPath())) {
+                for (Path p : stream) {
+                    names.add(p.getFileName().toString());
+                }
+            } catch (NoSuchFileException | NotDirectoryException e) {
+                // a missing directory isn't cached, it may be created by another process at any time
+                return null;
+            } catch (IOException e) {
+                // don't cache what can't be listed, check the file system directly
+                return null;
+            }
+            Set<String> existing = listings.putIfAbsent(dir, names);
+            if (existing != null) {
+                names = existing;
+            }
+        }
+        return names;
+    }
+
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2022 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.tools.maven.tracker;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.aether.RepositoryEvent;
+import org.eclipse.aether.repository.ArtifactRepository;
+import org.eclipse.aether.repository.RemoteRepository;
+
+/**
+ * Latencies and sizes of downloads during a session. {@code *Downloading} events are paired with {@code *Downloaded}
+ * events of the same artifact or metadata and repository, and each download is recorded in {@link LatencyHistogram}s
+ * of its remote repository (separately for artifacts and metadata) and in the list of all downloads, sorted only
+ * when the report is printed.
+ */
+public class DownloadStats {
+
+    /** Start times (nanoseconds) of downloads in progress. */
+    private final ConcurrentMap<String, Long> started = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Repository> repositories = new ConcurrentHashMap<>();
+
+    private final Queue<Download> downloads = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Records the start of a download.
+     */
+    public void downloading(RepositoryEvent event) {
+        String key = key(event);
+        if (key != null) {
+            started.put(key, System.nanoTime());
+        }
+    }
+
+    /**
+     * Records the end of a download started with {@link #downloading(RepositoryEvent)} and returns its latency in
+     * nanoseconds, or {@code -1} if the start is not known.
+     */
+    public long downloaded(RepositoryEvent event) {
+        String key = key(event);
+        Long start = key == null ? null : started.remove(key);
+        if (start == null) {
+            return -1L;
+        }
+        long nanos = System.nanoTime() - start;
+        File file = event.getFile();
+        long size = file == null || event.getException() != null ? 0L : file.length();
+        boolean metadata = event.getArtifact() == null;
+        Repository repository = repository(event.getRepository());
+        (metadata ? repository.metadata : repository.artifacts).record(nanos, size);
+        if (event.getException() != null) {
+            repository.failures.increment();
+        }
+        downloads.add(new Download(metadata ? event.getMetadata().toString() : event.getArtifact().toString(),
+                repository.id, nanos, size, event.getException() != null));
+        return nanos;
+    }
+
+    /**
+     * Statistics of remote repositories with at least one download.
+     */
+    public List<Repository> getRepositories() {
+        return new ArrayList<>(repositories.values());
+    }
+
+    /**
+     * Repositories sorted by the 95th percentile of their download latency (artifacts and metadata), slowest first.
+     */
+    public List<Repository> slowestRepositories(int limit) {
+        List<Repository> result = getRepositories();
+        Collections.sort(result, new Comparator<Repository>() {
+            @Override
+            public int compare(Repository r1, Repository r2) {
+                return Long.compare(r2.p95(), r1.p95());
+            }
+        });
+        return result.size() > limit ? result.subList(0, limit) : result;
+    }
+
+    /**
+     * Slowest downloads, slowest first.
+     */
+    public List<Download> slowestDownloads(int limit) {
+        List<Download> result = new ArrayList<>(downloads);
+        Collections.sort(result, new Comparator<Download>() {
+            @Override
+            public int compare(Download d1, Download d2) {
+                return Long.compare(d2.nanos, d1.nanos);
+            }
+        });
+        return result.size() > limit ? result.subList(0, limit) : result;
+    }
+
+    public boolean isEmpty() {
+        return repositories.isEmpty();
+    }
+
+    private Repository repository(ArtifactRepository repository) {
+        String id = repository == null ? "?" : repository.getId();
+        Repository stats = repositories.get(id);
+        if (stats == null) {
+            String url = repository instanceof RemoteRepository ? ((RemoteRepository) repository).getUrl() : "";
+            Repository previous = repositories.putIfAbsent(id, stats = new Repository(id, url));
+            if (previous != null) {
+                stats = previous;
+            }
+        }
+        return stats;
+    }
+
+    private static String key(RepositoryEvent event) {
+        Object item = event.getArtifact() != null ? event.getArtifact() : event.getMetadata();
+        if (item == null) {
+            return null;
+        }
+        ArtifactRepository repository = event.getRepository();
+        return (repository == null ? "?" : repository.getId()) + '\t' + item;
+    }
+
+    /**
+     * Download statistics of a remote repository.
+     */
+    public static final class Repository {
+
+        private final String id;
+        private final String url;
+        private final LatencyHistogram artifacts = new LatencyHistogram();
+        private final LatencyHistogram metadata = new LatencyHistogram();
+        private final LongAdder failures = new LongAdder();
+
+        Repository(String id, String url) {
+            this.id = id;
+            this.url = url;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public LatencyHistogram getArtifacts() {
+            return artifacts;
+        }
+
+        public LatencyHistogram getMetadata() {
+            return metadata;
+        }
+
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        private long p95() {
+            return Math.max(artifacts.percentile(0.95), metadata.percentile(0.95));
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(id).append(" (").append(url).append("):");
+            append(sb, "artifacts", artifacts);
+            append(sb, "metadata", metadata);
+            if (failures.sum() > 0) {
+                sb.append(", ").append(failures.sum()).append(" failed");
+            }
+            return sb.toString();
+        }
+
+        private static void append(StringBuilder sb, String name, LatencyHistogram histogram) {
+            if (histogram.getCount() == 0) {
+                return;
+            }
+            if (sb.charAt(sb.length() - 1) != ':') {
+                sb.append(';');
+            }
+            sb.append(String.format(" %d %s, %d KiB, p50/p95/p99 %d/%d/%d ms", histogram.getCount(), name,
+                    histogram.getBytes() / 1024, histogram.percentile(0.50) / 1000,
+                    histogram.percentile(0.95) / 1000, histogram.percentile(0.99) / 1000));
+        }
+    }
+
+    /**
+     * Single download.
+     */
+    public static final class Download {
+
+        private final String name;
+        private final String repository;
+        private final long nanos;
+        private final long size;
+        private final boolean failed;
+
+        Download(String name, String repository, long nanos, long size, boolean failed) {
+            this.name = name;
+            this.repository = repository;
+            this.nanos = nanos;
+            this.size = size;
+            this.failed = failed;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getRepository() {
+            return repository;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s from %s: %d ms, %d KiB%s", name, repository, nanos / 1000000L, size / 1024,
+                    failed ? " (failed)" : "");
+        }
+    }
+
+}
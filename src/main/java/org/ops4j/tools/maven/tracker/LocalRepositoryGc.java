@@ -0,0 +1,184 @@
+/*
+ * Copyright 2022 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.tools.maven.tracker;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Command line tool removing artifacts which no build used recently, according to the {@link UsageIndex} of a local
+ * repository:
+ *
+ * <pre>
+ * java -cp tracking-maven-extension.jar org.ops4j.tools.maven.tracker.LocalRepositoryGc \
+ *     [-r &lt;local repository&gt;] --days &lt;N&gt; [--delete]
+ * </pre>
+ *
+ * A version directory (with all its files, including {@code .tracking/}) is removed when none of its indexed artifacts
+ * was used in the last {@code N} days and the directory wasn't modified since. Directories without indexed artifacts
+ * are never touched, because their usage is unknown. Without {@code --delete} the tool only prints what would be
+ * removed. Only the JDK is needed on the class path.
+ */
+public class LocalRepositoryGc {
+
+    private final File localRepository;
+
+    public LocalRepositoryGc(File localRepository) {
+        this.localRepository = localRepository;
+    }
+
+    public static void main(String[] args) throws IOException {
+        File repository = new File(System.getProperty("user.home"), ".m2/repository");
+        int days = -1;
+        boolean delete = false;
+        for (int i = 0; i < args.length; i++) {
+            if ("-r".equals(args[i]) && i + 1 < args.length) {
+                repository = new File(args[++i]);
+            } else if ("--days".equals(args[i]) && i + 1 < args.length) {
+                days = Integer.parseInt(args[++i]);
+            } else if ("--delete".equals(args[i])) {
+                delete = true;
+            } else {
+                days = -1;
+                break;
+            }
+        }
+        if (days < 0) {
+            System.err.println("Usage: LocalRepositoryGc [-r <local repository>] --days <N> [--delete]");
+            System.exit(1);
+        }
+        new LocalRepositoryGc(repository).collect(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(days), delete);
+    }
+
+    /**
+     * Removes (or only reports when {@code delete} is {@code false}) version directories whose indexed artifacts were
+     * all last used before {@code cutoff}. Entries of removed directories are dropped from the index.
+     *
+     * The index stays locked for the whole scan, so builds ending meanwhile wait with their usage until it's written
+     * back. Directories (or their {@code _remote.repositories}) modified after {@code cutoff} are kept, as a running
+     * build may have just downloaded their artifacts without recording the usage yet.
+     *
+     * @return number of unused directories
+     */
+    public int collect(long cutoff, boolean delete) throws IOException {
+        File indexFile = UsageIndex.file(localRepository);
+        synchronized (UsageIndex.class) {
+            FileChannel lock = UsageIndex.lock(indexFile);
+            try {
+                Map<String, Long> entries = UsageIndex.read(indexFile);
+
+                // last use of each version directory
+                Map<String, Long> directories = new TreeMap<>();
+                for (Map.Entry<String, Long> e : entries.entrySet()) {
+                    String dir = parent(e.getKey());
+                    Long lastUsed = directories.get(dir);
+                    if (lastUsed == null || lastUsed < e.getValue()) {
+                        directories.put(dir, e.getValue());
+                    }
+                }
+
+                int count = 0;
+                long bytes = 0L;
+                for (Iterator<Map.Entry<String, Long>> it = directories.entrySet().iterator(); it.hasNext(); ) {
+                    Map.Entry<String, Long> e = it.next();
+                    if (e.getValue() >= cutoff || e.getKey().isEmpty()) {
+                        it.remove();
+                        continue;
+                    }
+                    File dir = new File(localRepository, e.getKey());
+                    if (dir.lastModified() >= cutoff
+                            || new File(dir, "_remote.repositories").lastModified() >= cutoff) {
+                        System.out.printf("Keeping %s (modified recently)%n", e.getKey());
+                        it.remove();
+                        continue;
+                    }
+                    long size = size(dir.toPath());
+                    long days = TimeUnit.MILLISECONDS.toDays(System.currentTimeMillis() - e.getValue());
+                    System.out.printf("%s %s (%d bytes, unused for %d days)%n", delete ? "Removing" : "Would remove",
+                            e.getKey(), size, days);
+                    if (delete) {
+                        delete(dir.toPath());
+                    }
+                    count++;
+                    bytes += size;
+                }
+                System.out.printf("%d unused directories, %d bytes%s%n", count, bytes, delete ? " removed" : "");
+
+                if (delete && count > 0) {
+                    for (Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+                        if (directories.containsKey(parent(it.next().getKey()))) {
+                            it.remove();
+                        }
+                    }
+                    UsageIndex.write(entries, indexFile);
+                }
+                return count;
+            } finally {
+                lock.close();
+            }
+        }
+    }
+
+    private static String parent(String path) {
+        int slash = Math.max(path.lastIndexOf('/'), path.lastIndexOf(File.separatorChar));
+        return slash < 0 ? "" : path.substring(0, slash);
+    }
+
+    private static long size(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return 0L;
+        }
+        final long[] size = new long[1];
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                size[0] += attrs.size();
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return size[0];
+    }
+
+    private static void delete(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path d, IOException exc) throws IOException {
+                Files.delete(d);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+}
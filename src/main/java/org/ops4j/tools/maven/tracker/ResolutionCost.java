@@ -0,0 +1,216 @@
+/*
+ * Copyright 2022 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.tools.maven.tracker;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.maven.model.Plugin;
+import org.eclipse.aether.RequestTrace;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.collection.CollectRequest;
+import org.eclipse.aether.resolution.DependencyRequest;
+
+/**
+ * Resolution time attributed to top-level artifacts - plugins and projects (roots of dependency collections).
+ *
+ * The time of a collection is attributed to its root. Within the collection, the time of processing a direct
+ * dependency of the root (its whole subtree: descriptor reads, version ranges and POM downloads) is attributed to the
+ * direct dependency, so the report tells through which dependencies the root was expensive. Downloads outside of
+ * collections (e.g. plugin and project artifacts) are attributed to the plugin or project found in their request
+ * trace. Entries are only summed during the session and sorted once, when the report is printed.
+ */
+public class ResolutionCost {
+
+    private final ConcurrentMap<String, Cost> costs = new ConcurrentHashMap<>();
+
+    /**
+     * Adds the time of a collection of given root.
+     */
+    public void collection(String root, long nanos) {
+        cost(root).collection.add(nanos);
+    }
+
+    /**
+     * Adds the time of processing of a direct dependency of given root, including its transitive dependencies.
+     */
+    public void via(String root, String dependency, long nanos) {
+        Cost cost = cost(root);
+        LongAdder via = cost.via.get(dependency);
+        if (via == null) {
+            LongAdder previous = cost.via.putIfAbsent(dependency, via = new LongAdder());
+            if (previous != null) {
+                via = previous;
+            }
+        }
+        via.add(nanos);
+    }
+
+    /**
+     * Adds the time of a download outside of dependency collection, attributed to the top-level artifact of the trace.
+     */
+    public void download(RequestTrace trace, long nanos) {
+        String root = root(trace);
+        if (root != null) {
+            cost(root).downloads.add(nanos);
+        }
+    }
+
+    /**
+     * Top-level artifacts sorted by their total resolution time, most expensive first.
+     */
+    public List<Cost> mostExpensive(int limit) {
+        List<Cost> result = new ArrayList<>(costs.values());
+        Collections.sort(result, new Comparator<Cost>() {
+            @Override
+            public int compare(Cost c1, Cost c2) {
+                return Long.compare(c2.getTotal(), c1.getTotal());
+            }
+        });
+        return result.size() > limit ? result.subList(0, limit) : result;
+    }
+
+    public boolean isEmpty() {
+        return costs.isEmpty();
+    }
+
+    /**
+     * {@code groupId:artifactId:version} of an artifact, as plugins are identified in traces.
+     */
+    static String key(Artifact artifact) {
+        return artifact == null ? "?" : artifact.getGroupId() + ":" + artifact.getArtifactId() + ":"
+                + artifact.getBaseVersion();
+    }
+
+    private static String root(RequestTrace trace) {
+        String root = null;
+        while (trace != null) {
+            Object data = trace.getData();
+            if (data instanceof Plugin) {
+                Plugin plugin = (Plugin) data;
+                return plugin.getGroupId() + ":" + plugin.getArtifactId() + ":" + plugin.getVersion();
+            } else if (data instanceof CollectRequest && root == null) {
+                root = root((CollectRequest) data);
+            } else if (data instanceof DependencyRequest && root == null
+                    && ((DependencyRequest) data).getCollectRequest() != null) {
+                root = root(((DependencyRequest) data).getCollectRequest());
+            }
+            trace = trace.getParent();
+        }
+        return root;
+    }
+
+    /**
+     * Top-level artifact of a collection - its root dependency or root artifact.
+     */
+    static String root(CollectRequest request) {
+        if (request.getRoot() != null) {
+            return key(request.getRoot().getArtifact());
+        }
+        return request.getRootArtifact() == null ? null : key(request.getRootArtifact());
+    }
+
+    private Cost cost(String root) {
+        Cost cost = costs.get(root);
+        if (cost == null) {
+            Cost previous = costs.putIfAbsent(root, cost = new Cost(root));
+            if (previous != null) {
+                cost = previous;
+            }
+        }
+        return cost;
+    }
+
+    /**
+     * Resolution time of a top-level artifact.
+     */
+    public static final class Cost {
+
+        private final String root;
+        private final LongAdder collection = new LongAdder();
+        private final LongAdder downloads = new LongAdder();
+        private final ConcurrentMap<String, LongAdder> via = new ConcurrentHashMap<>();
+
+        Cost(String root) {
+            this.root = root;
+        }
+
+        public String getRoot() {
+            return root;
+        }
+
+        /** Time of collections and downloads in nanoseconds. */
+        public long getTotal() {
+            return collection.sum() + downloads.sum();
+        }
+
+        public long getCollection() {
+            return collection.sum();
+        }
+
+        public long getDownloads() {
+            return downloads.sum();
+        }
+
+        /**
+         * Direct dependencies sorted by their (subtree) collection time, most expensive first.
+         */
+        public List<Map.Entry<String, Long>> mostExpensiveVia(int limit) {
+            List<Map.Entry<String, Long>> result = new ArrayList<>();
+            for (Map.Entry<String, LongAdder> e : via.entrySet()) {
+                result.add(new AbstractMap.SimpleImmutableEntry<>(e.getKey(), e.getValue().sum()));
+            }
+            Collections.sort(result, new Comparator<Map.Entry<String, Long>>() {
+                @Override
+                public int compare(Map.Entry<String, Long> e1, Map.Entry<String, Long> e2) {
+                    return Long.compare(e2.getValue(), e1.getValue());
+                }
+            });
+            return result.size() > limit ? result.subList(0, limit) : result;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("%s cost %s of resolution (collection %s, downloads %s)", root,
+                    seconds(getTotal()), seconds(collection.sum()), seconds(downloads.sum())));
+            List<Map.Entry<String, Long>> via = mostExpensiveVia(3);
+            if (!via.isEmpty()) {
+                sb.append(", mostly via ");
+                for (int i = 0; i < via.size(); i++) {
+                    if (i > 0) {
+                        sb.append(", ");
+                    }
+                    sb.append(via.get(i).getKey()).append(" (").append(seconds(via.get(i).getValue())).append(")");
+                }
+            }
+            return sb.toString();
+        }
+
+        private static String seconds(long nanos) {
+            return String.format("%.1f s", nanos / (double) TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+
+}
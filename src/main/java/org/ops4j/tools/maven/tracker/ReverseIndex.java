@@ -0,0 +1,104 @@
+/*
+ * Copyright 2022 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.tools.maven.tracker;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reverse dependency index of a local repository: for each tracked artifact, the top-level artifacts (dependencies or
+ * plugins) which required it, together with IDs of the requiring chains. Records are tab-separated
+ * {@code artifact, top-level artifact, chain ID} lines of a {@link SortedIndex} {@code reverse.idx} in
+ * {@link #INDEX_DIR} of the local repository. Distinct records of the session are added in sorted batches, records
+ * already in the index are not written again.
+ *
+ * The index is queried with {@link ReverseIndexQuery}.
+ */
+public class ReverseIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReverseIndex.class);
+
+    /** Directory (relative to local repository) with the indexes maintained by the extension. */
+    public static final String INDEX_DIR = ".tracking-index";
+
+    public static final String REVERSE_INDEX = "reverse.idx";
+
+    private static final int BATCH_SIZE = 8192;
+
+    private final SortedIndex index;
+    private final Set<String> known = new HashSet<>();
+    private final TreeSet<String> pending = new TreeSet<>();
+    private int pendingSize;
+
+    public ReverseIndex(File localRepository) {
+        this.index = index(localRepository);
+    }
+
+    static SortedIndex index(File localRepository) {
+        return new SortedIndex(new File(new File(localRepository, INDEX_DIR), REVERSE_INDEX));
+    }
+
+    /**
+     * Records that {@code artifact} was required (through a chain with given ID) by a top-level artifact.
+     */
+    public synchronized void record(String artifact, String topLevel, String chainId) {
+        String line = artifact + '\t' + topLevel + '\t' + chainId;
+        if (known.add(line)) {
+            pending.add(line);
+            pendingSize += line.length() + 1;
+            if (pendingSize >= BATCH_SIZE) {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * Number of characters recorded but not written yet.
+     */
+    public synchronized int getPending() {
+        return pendingSize;
+    }
+
+    /**
+     * Flushes records appended during the session.
+     */
+    public synchronized void close() {
+        flush();
+    }
+
+    private void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<String> batch = new ArrayList<>(pending);
+        pending.clear();
+        pendingSize = 0;
+        try {
+            index.add(batch);
+        } catch (IOException e) {
+            LOG.debug("Can't update reverse index {}: {}", index, e.getMessage());
+        }
+    }
+
+}
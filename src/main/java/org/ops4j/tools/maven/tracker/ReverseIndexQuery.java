@@ -0,0 +1,168 @@
+/*
+ * Copyright 2022 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.tools.maven.tracker;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Command line tool answering "who pulled in X?" from the {@link ReverseIndex} of a local repository, without scanning
+ * {@code .tracking/} directories:
+ *
+ * <pre>
+ * java -cp tracking-maven-extension.jar org.ops4j.tools.maven.tracker.ReverseIndexQuery \
+ *     [-r &lt;local repository&gt;] [--chains] groupId:artifactId[:version] ...
+ * </pre>
+ *
+ * Only the blocks of the sorted index which may contain the queried artifacts are read. For each matching artifact,
+ * the top-level artifacts which required it are printed with the IDs of requiring chains. With {@code --chains},
+ * chains recorded in the {@link ChainStore} are printed in full. Only the JDK is needed on the class path.
+ */
+public class ReverseIndexQuery {
+
+    private final File dir;
+    private final SortedIndex index;
+    private final File chains;
+
+    public ReverseIndexQuery(File localRepository) {
+        this.dir = new File(localRepository, ReverseIndex.INDEX_DIR);
+        this.index = ReverseIndex.index(localRepository);
+        this.chains = new File(dir, ChainStore.CHAINS);
+    }
+
+    public static void main(String[] args) throws IOException {
+        File repository = new File(System.getProperty("user.home"), ".m2/repository");
+        int i = 0;
+        if (args.length >= 2 && "-r".equals(args[0])) {
+            repository = new File(args[1]);
+            i = 2;
+        }
+        boolean expand = false;
+        if (i < args.length && "--chains".equals(args[i])) {
+            expand = true;
+            i++;
+        }
+        if (i >= args.length) {
+            System.err.println("Usage: ReverseIndexQuery [-r <local repository>] [--chains] groupId:artifactId[:version] ...");
+            System.exit(1);
+        }
+        ReverseIndexQuery query = new ReverseIndexQuery(repository);
+        Map<String, String[]> chains = expand ? query.chains() : null;
+        for (; i < args.length; i++) {
+            query.print(args[i], chains, System.out);
+        }
+    }
+
+    /**
+     * Returns top-level artifacts (with chain IDs) of each artifact matching {@code groupId:artifactId[:version]}.
+     */
+    public Map<String, Map<String, Set<String>>> query(String coordinates) throws IOException {
+        String[] pattern = coordinates.split(":");
+        Map<String, Map<String, Set<String>>> result = new TreeMap<>();
+        if (pattern.length < 2) {
+            return result;
+        }
+        List<String> lines = new ArrayList<>();
+        index.lookup(pattern[0] + ':' + pattern[1] + ':', lines);
+        for (String line : lines) {
+            String[] fields = line.split("\t");
+            if (fields.length < 3 || !matches(fields[0], pattern)) {
+                continue;
+            }
+            Map<String, Set<String>> topLevels = result.get(fields[0]);
+            if (topLevels == null) {
+                topLevels = new TreeMap<>();
+                result.put(fields[0], topLevels);
+            }
+            Set<String> chains = topLevels.get(fields[1]);
+            if (chains == null) {
+                chains = new TreeSet<>();
+                topLevels.put(fields[1], chains);
+            }
+            chains.add(fields[2]);
+        }
+        return result;
+    }
+
+    /**
+     * Reads the {@link ChainStore}: {@code parent ID, node} pairs by chain ID.
+     */
+    public Map<String, String[]> chains() throws IOException {
+        Map<String, String[]> result = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(chains.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", 3);
+                if (fields.length == 3) {
+                    result.put(fields[0], new String[] { fields[1], fields[2] });
+                }
+            }
+        } catch (NoSuchFileException ignored) {
+        }
+        return result;
+    }
+
+    private void print(String coordinates, Map<String, String[]> chains, PrintStream out) throws IOException {
+        Map<String, Map<String, Set<String>>> result = query(coordinates);
+        if (result.isEmpty()) {
+            out.printf("%s: not found in %s%n", coordinates, dir);
+        }
+        for (Map.Entry<String, Map<String, Set<String>>> artifact : result.entrySet()) {
+            out.println(artifact.getKey());
+            for (Map.Entry<String, Set<String>> topLevel : artifact.getValue().entrySet()) {
+                out.printf(" <- %s (chains: %s)%n", topLevel.getKey(), String.join(", ", topLevel.getValue()));
+                if (chains != null) {
+                    for (String chain : topLevel.getValue()) {
+                        out.printf("    chain %s:%n", chain);
+                        // from the direct requirer to the top-level artifact, as in .dep files
+                        String indent = "     -> ";
+                        String[] entry = chains.get(chain);
+                        while (entry != null) {
+                            out.printf("%s%s%n", indent, entry[1]);
+                            indent = "  " + indent;
+                            entry = chains.get(entry[0]);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Artifact is {@code groupId:artifactId:extension[:classifier]:version}.
+     */
+    private static boolean matches(String artifact, String[] pattern) {
+        String[] coords = artifact.split(":");
+        if (coords.length < 4 || pattern.length < 2) {
+            return false;
+        }
+        return coords[0].equals(pattern[0]) && coords[1].equals(pattern[1])
+                && (pattern.length < 3 || coords[coords.length - 1].equals(pattern[pattern.length - 1]));
+    }
+
+}
@@ -0,0 +1,320 @@
+/*
+ * Copyright 2022 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.tools.maven.tracker;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Sorted distinct lines of an index file shared by builds, looked up without reading the whole file:
+ * <ul>
+ *     <li>{@code <name>} - sorted distinct lines,</li>
+ *     <li>{@code <name>.keys} - length of {@code <name>} followed by {@code offset, first line} lines of its blocks of
+ *     about {@link #KEY_INTERVAL} bytes, so a lookup reads a block or two instead of the whole file,</li>
+ *     <li>{@code <name>.log} - lines not compacted into {@code <name>} yet.</li>
+ * </ul>
+ * Added lines are checked against the blocks which may contain them, only new ones are appended to the log. When the
+ * log grows over {@link #COMPACT_SIZE}, it's merged into a new {@code <name>}. Updates are serialized across processes
+ * with a lock file, the files are replaced atomically and the log is removed only after the merged file is in place, so
+ * readers (which read the log first) never miss lines.
+ */
+final class SortedIndex {
+
+    /** Approximate number of bytes of the sorted file between two of its keys. */
+    static final int KEY_INTERVAL = 4096;
+
+    /** Size of the log (in bytes) which triggers its compaction into the sorted file. */
+    static final long COMPACT_SIZE = 64 * 1024;
+
+    private final File file;
+    private final File keysFile;
+    private final File log;
+
+    SortedIndex(File file) {
+        this.file = file;
+        this.keysFile = new File(file.getPath() + ".keys");
+        this.log = new File(file.getPath() + ".log");
+    }
+
+    /**
+     * Adds given sorted lines, returns the lines which weren't in the index yet. A file of unsorted lines (e.g.
+     * written by a previous version of the extension) is sorted first.
+     */
+    List<String> add(List<String> lines) throws IOException {
+        synchronized (SortedIndex.class) {
+            FileChannel lock = UsageIndex.lock(file);
+            try {
+                if (file.isFile() && Keys.read(keysFile, file.length()) == null) {
+                    compact(false);
+                }
+                List<String> added = absent(lines);
+                if (!added.isEmpty()) {
+                    StringBuilder sb = new StringBuilder();
+                    for (String line : added) {
+                        sb.append(line).append('\n');
+                    }
+                    TrackingFiles.append(log, sb.toString());
+                }
+                if (log.length() >= COMPACT_SIZE) {
+                    compact(true);
+                }
+                return added;
+            } finally {
+                lock.close();
+            }
+        }
+    }
+
+    /**
+     * Lines of given sorted lines which aren't in the index. Only blocks of the sorted file which may contain the
+     * lines are read.
+     */
+    List<String> absent(List<String> lines) throws IOException {
+        Set<String> logged = readLines(log);
+        List<String> result = new ArrayList<>();
+        for (String line : retainNew(lines, Keys.read(keysFile, file.length()))) {
+            if (!logged.contains(line)) {
+                result.add(line);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds lines of the index starting with {@code prefix} to {@code lines}. Missing files are an empty index.
+     */
+    void lookup(String prefix, Collection<String> lines) throws IOException {
+        // the log first - it's removed only after its lines are in the sorted file
+        for (String line : readLines(log)) {
+            if (line.startsWith(prefix)) {
+                lines.add(line);
+            }
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath())) {
+            Keys keys = Keys.read(keysFile, channel.size());
+            // without (matching) keys the file is scanned - a concurrent compaction just replaced it
+            BufferedReader reader = reader(channel, keys == null ? 0L : keys.start(prefix));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(prefix)) {
+                    lines.add(line);
+                } else if (keys != null && line.compareTo(prefix) > 0) {
+                    break;
+                }
+            }
+        } catch (NoSuchFileException ignored) {
+        }
+    }
+
+    /**
+     * Lines of given sorted batch which aren't in the sorted file (all of them without keys).
+     */
+    private List<String> retainNew(List<String> batch, Keys keys) throws IOException {
+        if (keys == null) {
+            return batch;
+        }
+        List<String> result = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file.toPath())) {
+            long block = -1L;
+            BufferedReader reader = null;
+            String current = null;
+            for (String line : batch) {
+                long start = keys.start(line);
+                if (start != block) {
+                    block = start;
+                    reader = reader(channel, start);
+                    current = reader.readLine();
+                }
+                while (current != null && current.compareTo(line) < 0) {
+                    current = reader.readLine();
+                }
+                if (!line.equals(current)) {
+                    result.add(line);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Merges the log into a new sorted file with new keys and removes the log.
+     *
+     * @param sorted whether the current file is sorted, so it's merged as a stream instead of sorted in memory
+     */
+    private void compact(boolean sorted) throws IOException {
+        TreeSet<String> lines = new TreeSet<>(readLines(log));
+        if (!sorted) {
+            lines.addAll(readLines(file));
+        }
+        File dir = file.getParentFile();
+        File indexTmp = File.createTempFile(file.getName(), ".tmp", dir);
+        File keysTmp = File.createTempFile(keysFile.getName(), ".tmp", dir);
+        try {
+            StringBuilder keys = new StringBuilder();
+            long length = 0L;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(indexTmp.toPath()));
+                 BufferedReader current = sorted && file.isFile()
+                         ? Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8) : null) {
+                Iterator<String> added = lines.iterator();
+                String a = added.hasNext() ? added.next() : null;
+                String c = current == null ? null : current.readLine();
+                String previous = null;
+                long keyed = -KEY_INTERVAL;
+                while (a != null || c != null) {
+                    String line;
+                    if (c == null || (a != null && a.compareTo(c) < 0)) {
+                        line = a;
+                        a = added.hasNext() ? added.next() : null;
+                    } else {
+                        line = c;
+                        c = current.readLine();
+                    }
+                    if (line.isEmpty() || line.equals(previous)) {
+                        continue;
+                    }
+                    previous = line;
+                    if (length - keyed >= KEY_INTERVAL) {
+                        keys.append(length).append('\t').append(line).append('\n');
+                        keyed = length;
+                    }
+                    byte[] bytes = (line + '\n').getBytes(StandardCharsets.UTF_8);
+                    out.write(bytes);
+                    length += bytes.length;
+                }
+            }
+            byte[] keyBytes = (length + "\n" + keys).getBytes(StandardCharsets.UTF_8);
+            Files.write(keysTmp.toPath(), keyBytes);
+            TrackingFiles.written(length + keyBytes.length);
+            // readers find keys not matching the new file until they're moved too, and scan it meanwhile
+            Files.move(indexTmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            Files.move(keysTmp.toPath(), keysFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(log.toPath());
+        } finally {
+            Files.deleteIfExists(indexTmp.toPath());
+            Files.deleteIfExists(keysTmp.toPath());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return file.getPath();
+    }
+
+    /**
+     * Reads (unsorted) lines of given file, missing file has no lines.
+     */
+    private static Set<String> readLines(File file) throws IOException {
+        Set<String> lines = new HashSet<>();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    lines.add(line);
+                }
+            }
+        } catch (NoSuchFileException ignored) {
+        }
+        return lines;
+    }
+
+    /**
+     * Reader of lines of the channel from given offset. Closed together with the channel.
+     */
+    private static BufferedReader reader(FileChannel channel, long offset) throws IOException {
+        return new BufferedReader(new InputStreamReader(Channels.newInputStream(channel.position(offset)),
+                StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Offsets of blocks of the sorted file with their first lines.
+     */
+    static final class Keys {
+
+        private final long[] offsets;
+        private final String[] lines;
+
+        private Keys(long[] offsets, String[] lines) {
+            this.offsets = offsets;
+            this.lines = lines;
+        }
+
+        /**
+         * Reads the keys, returns {@code null} when they're missing or don't describe a file of given length.
+         */
+        static Keys read(File file, long length) throws IOException {
+            List<String> entries = new ArrayList<>();
+            try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                if (!Long.toString(length).equals(reader.readLine())) {
+                    return null;
+                }
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    entries.add(line);
+                }
+            } catch (NoSuchFileException e) {
+                return null;
+            }
+            long[] offsets = new long[entries.size()];
+            String[] lines = new String[entries.size()];
+            for (int i = 0; i < offsets.length; i++) {
+                String entry = entries.get(i);
+                int tab = entry.indexOf('\t');
+                if (tab <= 0) {
+                    return null;
+                }
+                try {
+                    offsets[i] = Long.parseLong(entry.substring(0, tab));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+                lines[i] = entry.substring(tab + 1);
+            }
+            return new Keys(offsets, lines);
+        }
+
+        /**
+         * Offset of the block where lines equal to or following given line start.
+         */
+        long start(String line) {
+            int i = Arrays.binarySearch(lines, line);
+            if (i < 0) {
+                i = -i - 2;
+            }
+            return i < 0 ? 0L : offsets[i];
+        }
+    }
+
+}
@@ -15,19 +15,238 @@
  */
 package org.ops4j.tools.maven.tracker;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import javax.inject.Inject;
+
 import org.apache.maven.AbstractMavenLifecycleParticipant;
+import org.apache.maven.RepositoryUtils;
 import org.apache.maven.execution.MavenSession;
 import org.codehaus.plexus.component.annotations.Component;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.impl.ArtifactDescriptorReader;
+import org.eclipse.aether.impl.VersionRangeResolver;
+import org.eclipse.aether.internal.impl.collect.CollectionMetrics;
+import org.eclipse.aether.internal.impl.collect.Footprint;
+import org.eclipse.aether.internal.impl.collect.ResolutionManifest;
+import org.eclipse.aether.internal.impl.collect.TraceRecorder;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.util.ConfigUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 @Component(role = AbstractMavenLifecycleParticipant.class)
 public class TrackingConfigurator extends AbstractMavenLifecycleParticipant {
 
+    /** Location of the resolution manifest, relative to the execution root directory. Unset disables the manifest. */
+    public static final String CONFIG_PROP_RESOLUTION_MANIFEST = "tracking.resolutionManifest";
+
+    /** Number of threads used to load descriptors listed in the resolution manifest. */
+    public static final String CONFIG_PROP_RESOLUTION_MANIFEST_THREADS = "tracking.resolutionManifest.threads";
+
+    /**
+     * Location of the cache manifest (list of local repository files used by the build), relative to the execution
+     * root directory. Unset disables the manifest.
+     */
+    public static final String CONFIG_PROP_CACHE_MANIFEST = "tracking.cacheManifest";
+
+    /**
+     * Number of the most expensive top-level artifacts (see {@link ResolutionCost}) reported at session end,
+     * {@code 0} disables the report.
+     */
+    public static final String CONFIG_PROP_COST_REPORT = "tracking.costReport";
+
+    /**
+     * Location of the Chrome trace-event timeline (see {@link TraceRecorder}) of the session, relative to the execution
+     * root directory. Unset disables the recording.
+     */
+    public static final String CONFIG_PROP_TRACE = "tracking.trace";
+
+    /**
+     * Location of the build history (see {@link BuildHistory}), relative to the execution root directory. Unset
+     * disables the history.
+     */
+    public static final String CONFIG_PROP_BUILD_HISTORY = "tracking.buildHistory";
+
+    /** Number of previous builds the summary of a build is compared with. */
+    public static final String CONFIG_PROP_BUILD_HISTORY_COMPARE = "tracking.buildHistory.compare";
+
+    /** Percents by which a value of the summary has to be worse than in previous builds to be reported. */
+    public static final String CONFIG_PROP_BUILD_HISTORY_THRESHOLD = "tracking.buildHistory.threshold";
+
+    private static final Logger LOG = LoggerFactory.getLogger(TrackingConfigurator.class);
+
+    private final DescriptorPrewarmer prewarmer;
+
+    /** Collection counters when the (latest) session started, for the build summary. */
+    private volatile long[] collectionCounters = CollectionMetrics.snapshot();
+
+    private final RepositorySystem repositorySystem;
+
+    @Inject
+    TrackingConfigurator(RepositorySystem repositorySystem, ArtifactDescriptorReader artifactDescriptorReader,
+            VersionRangeResolver versionRangeResolver) {
+        this.repositorySystem = repositorySystem;
+        this.prewarmer = new DescriptorPrewarmer(artifactDescriptorReader, versionRangeResolver);
+    }
+
     @Override
     public void afterSessionStart(MavenSession session) {
+        collectionCounters = CollectionMetrics.snapshot();
+        TrackingLocalRepositoryManagerFactory.TrackingLocalRepositoryManager lrm =
+                TrackingLocalRepositoryManagerFactory.TrackingLocalRepositoryManager.of(session.getRepositorySession());
+        if (lrm != null) {
+            TrackingMetrics.register(lrm);
+        }
+        if (file(session, CONFIG_PROP_TRACE) != null) {
+            TraceRecorder.start();
+        }
+
+        File manifestFile = file(session, CONFIG_PROP_RESOLUTION_MANIFEST);
+        if (manifestFile == null) {
+            return;
+        }
+        RepositorySystemSession repoSession = session.getRepositorySession();
+        ResolutionManifest manifest = ResolutionManifest.install(repoSession);
+        if (manifestFile.isFile()) {
+            int threads = ConfigUtils.getInteger(repoSession, Runtime.getRuntime().availableProcessors(),
+                    CONFIG_PROP_RESOLUTION_MANIFEST_THREADS);
+            try {
+                prewarmer.prewarm(repoSession, manifest, manifestFile, remoteRepositories(session), threads);
+            } catch (IOException e) {
+                LOG.warn("Can't read resolution manifest {}: {}", manifestFile, e.getMessage());
+            }
+        }
     }
 
     @Override
     public void afterSessionEnd(MavenSession session) {
+        File traceFile = file(session, CONFIG_PROP_TRACE);
+        if (TraceRecorder.isRecording()) {
+            TraceRecorder.stop();
+            if (traceFile != null) {
+                try {
+                    TraceRecorder.write(traceFile);
+                    LOG.info("Resolution timeline written to {}", traceFile);
+                } catch (IOException e) {
+                    LOG.warn("Can't write resolution timeline {}: {}", traceFile, e.getMessage());
+                }
+            }
+        }
+
+        if (Footprint.isEnabled(session.getRepositorySession())) {
+            LOG.info("Dependency collection session footprint {}", Footprint.estimate(session.getRepositorySession()));
+        }
+
+        TrackingLocalRepositoryManagerFactory.TrackingLocalRepositoryManager lrm =
+                TrackingLocalRepositoryManagerFactory.TrackingLocalRepositoryManager.of(session.getRepositorySession());
+        if (lrm != null && lrm.isCachingLookups()) {
+            LOG.info("Local artifact lookups: {} served from memory, {} from disk", lrm.getMemoryLookups(),
+                    lrm.getDiskLookups());
+        }
+        if (lrm != null && lrm.getOverhead().isMeasured()) {
+            LOG.info("Tracking overhead {}", lrm.getOverhead());
+        }
+        if (lrm != null && !lrm.getDownloadStats().isEmpty()) {
+            LOG.info("Slowest remote repositories:");
+            for (DownloadStats.Repository repository : lrm.getDownloadStats().slowestRepositories(5)) {
+                LOG.info("  {}", repository);
+            }
+            LOG.info("Slowest downloads:");
+            for (DownloadStats.Download download : lrm.getDownloadStats().slowestDownloads(10)) {
+                LOG.info("  {}", download);
+            }
+        }
+        int costReport = ConfigUtils.getInteger(session.getRepositorySession(), 5, CONFIG_PROP_COST_REPORT);
+        if (lrm != null && costReport > 0 && !lrm.getResolutionCost().isEmpty()) {
+            LOG.info("Most expensive top-level artifacts:");
+            for (ResolutionCost.Cost cost : lrm.getResolutionCost().mostExpensive(costReport)) {
+                LOG.info("  {}", cost);
+            }
+        }
+        File historyFile = file(session, CONFIG_PROP_BUILD_HISTORY);
+        if (lrm != null && historyFile != null) {
+            BuildSummary summary = BuildSummary.of(lrm, collectionCounters, CollectionMetrics.snapshot(),
+                    System.currentTimeMillis());
+            int builds = Math.max(0, ConfigUtils.getInteger(session.getRepositorySession(), 5,
+                    CONFIG_PROP_BUILD_HISTORY_COMPARE));
+            float threshold = ConfigUtils.getFloat(session.getRepositorySession(), 25f,
+                    CONFIG_PROP_BUILD_HISTORY_THRESHOLD);
+            try {
+                List<BuildHistory.Regression> regressions = new BuildHistory(historyFile).append(summary, builds,
+                        threshold);
+                if (!regressions.isEmpty()) {
+                    LOG.warn("Resolution performance regressed against previous builds:");
+                    for (BuildHistory.Regression regression : regressions) {
+                        LOG.warn("  {}", regression);
+                    }
+                }
+            } catch (IOException e) {
+                LOG.warn("Can't update build history {}: {}", historyFile, e.getMessage());
+            }
+        }
+        if (lrm != null && lrm.getReverseIndex() != null) {
+            lrm.getReverseIndex().close();
+        }
+        if (lrm != null && lrm.getChainStore() != null) {
+            lrm.getChainStore().close();
+        }
+        if (lrm != null && lrm.getBlockStore() != null) {
+            lrm.getBlockStore().close();
+        }
+        File cacheManifestFile = file(session, CONFIG_PROP_CACHE_MANIFEST);
+        if (lrm != null && lrm.getCacheManifest() != null && cacheManifestFile != null) {
+            try {
+                lrm.getCacheManifest().write(cacheManifestFile);
+            } catch (IOException e) {
+                LOG.warn("Can't write cache manifest {}: {}", cacheManifestFile, e.getMessage());
+            }
+        }
+        if (lrm != null && lrm.getUsageIndex() != null) {
+            try {
+                lrm.getUsageIndex().write(System.currentTimeMillis());
+            } catch (IOException e) {
+                LOG.warn("Can't update usage index of {}: {}", lrm.getRepository().getBasedir(), e.getMessage());
+            }
+        }
+
+        File manifestFile = file(session, CONFIG_PROP_RESOLUTION_MANIFEST);
+        ResolutionManifest manifest = ResolutionManifest.get(session.getRepositorySession());
+        if (manifestFile != null && manifest != null) {
+            try {
+                DescriptorPrewarmer.write(manifest, manifestFile);
+            } catch (IOException e) {
+                LOG.warn("Can't write resolution manifest {}: {}", manifestFile, e.getMessage());
+            }
+        }
+    }
+
+    private static File file(MavenSession session, String property) {
+        String location = ConfigUtils.getString(session.getRepositorySession(), null, property);
+        if (location == null || location.trim().isEmpty()) {
+            return null;
+        }
+        File file = new File(location.trim());
+        if (!file.isAbsolute() && session.getExecutionRootDirectory() != null) {
+            file = new File(session.getExecutionRootDirectory(), location.trim());
+        }
+        return file;
+    }
+
+    /**
+     * Projects are not yet known when the session starts, so descriptors are read from repositories of the execution
+     * request (settings, profiles and central), with mirrors, authentication and proxies of the session applied.
+     */
+    private List<RemoteRepository> remoteRepositories(MavenSession session) {
+        LinkedHashSet<RemoteRepository> repositories = new LinkedHashSet<>();
+        repositories.addAll(RepositoryUtils.toRepos(session.getRequest().getRemoteRepositories()));
+        repositories.addAll(RepositoryUtils.toRepos(session.getRequest().getPluginArtifactRepositories()));
+        return repositorySystem.newResolutionRepositories(session.getRepositorySession(),
+                new ArrayList<>(repositories));
     }
 
 }
@@ -19,7 +19,11 @@ import java.util.List;
 import javax.inject.Inject;
 
 import org.codehaus.plexus.component.annotations.Component;
+import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.collection.CollectRequest;
+import org.eclipse.aether.collection.CollectResult;
+import org.eclipse.aether.collection.DependencyCollectionException;
 import org.eclipse.aether.collection.DependencyManager;
 import org.eclipse.aether.collection.DependencySelector;
 import org.eclipse.aether.collection.DependencyTraverser;
@@ -30,6 +34,7 @@ import org.eclipse.aether.impl.DependencyCollector;
 import org.eclipse.aether.impl.RemoteRepositoryManager;
 import org.eclipse.aether.impl.VersionRangeResolver;
 import org.eclipse.aether.internal.impl.collect.DefaultDependencyCollector;
+import org.eclipse.aether.internal.impl.collect.TraceRecorder;
 import org.eclipse.aether.repository.RemoteRepository;
 
 @Component(role = DependencyCollector.class)
@@ -44,11 +49,76 @@ public class TrackingDependencyCollector extends DefaultDependencyCollector {
         this.setVersionRangeResolver(versionRangeResolver);
     }
 
+    @Override
+    public CollectResult collectDependencies(RepositorySystemSession session, CollectRequest request)
+            throws DependencyCollectionException {
+        TrackingLocalRepositoryManagerFactory.TrackingLocalRepositoryManager lrm =
+                TrackingLocalRepositoryManagerFactory.TrackingLocalRepositoryManager.of(session);
+        if (lrm == null) {
+            return super.collectDependencies(session, request);
+        }
+        lrm.getOverhead().collecting();
+        long start = System.nanoTime();
+        try {
+            return super.collectDependencies(session, request);
+        } finally {
+            long nanos = System.nanoTime() - start;
+            lrm.getOverhead().collected(nanos);
+            String root = ResolutionCost.root(request);
+            if (root != null) {
+                lrm.getResolutionCost().collection(root, nanos);
+            }
+        }
+    }
+
     @Override
     protected void processDependency(DefaultDependencyCollector.Args args, DefaultDependencyCollector.Results results, List<RemoteRepository> repositories, DependencySelector depSelector, DependencyManager depManager, DependencyTraverser depTraverser, VersionFilter verFilter, Dependency dependency, List<Artifact> relocations, boolean disableVersionManagement) {
-        TrackingRepositoryListener.stack.push(args.nodes.top());
-        super.processDependency(args, results, repositories, depSelector, depManager, depTraverser, verFilter, dependency, relocations, disableVersionManagement);
-        TrackingRepositoryListener.stack.pop();
+        TrackingLocalRepositoryManagerFactory.TrackingLocalRepositoryManager lrm =
+                TrackingLocalRepositoryManagerFactory.TrackingLocalRepositoryManager.of(args.getSession());
+        TrackingOverhead overhead = lrm == null ? null : lrm.getOverhead();
+        // decided once, so a push is always followed by a pop even if tracking is degraded in between
+        boolean track = overhead == null || !overhead.isDegraded();
+        boolean measured = overhead != null && overhead.isMeasured();
+        boolean chained = false;
+        if (track) {
+            long start = measured ? TrackingOverhead.start() : 0L;
+            ChainStore chainStore = lrm == null ? null : lrm.getChainStore();
+            TrackingRepositoryListener.stack.push(args.nodes.top());
+            if (chainStore != null) {
+                Long parent = TrackingRepositoryListener.chainIds.peekFirst();
+                TrackingRepositoryListener.chainIds.push(chainStore.intern(parent == null ? ChainStore.ROOT : parent,
+                        args.nodes.top()));
+                chained = true;
+            }
+            if (measured) {
+                overhead.stack(System.nanoTime() - start);
+            }
+        }
+        try {
+            // the subtree of a direct dependency is attributed to it in the resolution cost of the root
+            long direct = (lrm != null || TraceRecorder.isRecording()) && args.nodes.size() == 1 ? System.nanoTime() : -1L;
+            super.processDependency(args, results, repositories, depSelector, depManager, depTraverser, verFilter, dependency, relocations, disableVersionManagement);
+            if (direct >= 0) {
+                long end = System.nanoTime();
+                String root = ResolutionCost.key(args.nodes.get(0).getArtifact());
+                if (lrm != null) {
+                    lrm.getResolutionCost().via(root, ResolutionCost.key(dependency.getArtifact()), end - direct);
+                }
+                TraceRecorder.span("dependency", "collection", direct, end, dependency.getArtifact(), root);
+            }
+        } finally {
+            // popped even when the collection fails, so later chains don't get a stale parent
+            if (track) {
+                long start = measured ? TrackingOverhead.start() : 0L;
+                TrackingRepositoryListener.stack.pop();
+                if (chained) {
+                    TrackingRepositoryListener.chainIds.pop();
+                }
+                if (measured) {
+                    overhead.stack(System.nanoTime() - start);
+                }
+            }
+        }
     }
 
 }
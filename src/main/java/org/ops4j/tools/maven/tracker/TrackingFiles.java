@@ -0,0 +1,152 @@
+/*
+ * Copyright 2022 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.tools.maven.tracker;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * File writes safe for local repositories shared by concurrent Maven processes.
+ *
+ * Appends write a whole record with a single {@code O_APPEND} write while holding an exclusive {@link FileLock} of the
+ * appended file, so records of concurrent processes never interleave. {@link FileLock}s are held by the whole JVM, so
+ * threads of one process are serialized by one of {@link #SHARDS} monitors chosen by the file path - threads appending
+ * to different files rarely wait for each other. Whole files are written to a temporary file and renamed atomically.
+ */
+public final class TrackingFiles {
+
+    private static final int SHARDS = 64;
+
+    private static final Object[] LOCKS = new Object[SHARDS];
+
+    /** Bytes appended and written by this JVM. */
+    private static final LongAdder WRITTEN = new LongAdder();
+
+    static {
+        for (int i = 0; i < SHARDS; i++) {
+            LOCKS[i] = new Object();
+        }
+    }
+
+    private TrackingFiles() {
+    }
+
+    /**
+     * Appends {@code record} to the file (creating it if needed) as a single record.
+     */
+    public static void append(File file, String record) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(record.getBytes(StandardCharsets.UTF_8));
+        synchronized (shard(file)) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                FileLock lock = lock(channel);
+                try {
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                } finally {
+                    lock.release();
+                }
+            }
+        }
+        WRITTEN.add(buffer.capacity());
+    }
+
+    /**
+     * Counts bytes written to tracking files without {@link #append(File, String)} or {@link #write(File, String)}.
+     */
+    static void written(long bytes) {
+        WRITTEN.add(bytes);
+    }
+
+    /**
+     * Number of bytes appended and written (by this JVM) so far.
+     */
+    public static long getWritten() {
+        return WRITTEN.sum();
+    }
+
+    /**
+     * Writes the file (replacing existing one) through a temporary file in the same directory renamed atomically, so
+     * readers and concurrent writers never see partial content.
+     */
+    public static void write(File file, String content) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+        try {
+            byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+            Files.write(tmp.toPath(), bytes);
+            WRITTEN.add(bytes.length);
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+    }
+
+    /**
+     * Acquires an exclusive lock of given lock file, serializing read-modify-write updates of related files across
+     * processes. The lock is released by closing the returned channel.
+     */
+    public static FileChannel lock(File lockFile) throws IOException {
+        FileChannel channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            lock(channel);
+            return channel;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Acquires an exclusive lock of the whole channel. A lock of the same file held by this JVM elsewhere (another
+     * class loader of the extension or another path of the file) is waited for instead of failing with
+     * {@link OverlappingFileLockException}.
+     */
+    private static FileLock lock(FileChannel channel) throws IOException {
+        while (true) {
+            try {
+                return channel.lock();
+            } catch (OverlappingFileLockException e) {
+                try {
+                    Thread.sleep(1L);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for a lock");
+                }
+            }
+        }
+    }
+
+    /**
+     * Monitor of given file, the same for all paths (relative, absolute, with {@code ..}) of the file.
+     */
+    private static Object shard(File file) {
+        return LOCKS[(file.getAbsoluteFile().toPath().normalize().hashCode() & Integer.MAX_VALUE) % SHARDS];
+    }
+
+}
@@ -15,11 +15,20 @@
  */
 package org.ops4j.tools.maven.tracker;
 
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.inject.Named;
 
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.internal.impl.EnhancedLocalRepositoryManagerFactory;
+import org.eclipse.aether.internal.impl.collect.CollectionEvents;
 import org.eclipse.aether.metadata.Metadata;
 import org.eclipse.aether.repository.LocalArtifactRegistration;
 import org.eclipse.aether.repository.LocalArtifactRequest;
@@ -31,21 +40,280 @@ import org.eclipse.aether.repository.LocalRepository;
 import org.eclipse.aether.repository.LocalRepositoryManager;
 import org.eclipse.aether.repository.NoLocalRepositoryManagerException;
 import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.util.ConfigUtils;
 
 @Named("enhanced")
 public class TrackingLocalRepositoryManagerFactory extends EnhancedLocalRepositoryManagerFactory {
 
+    /** Boolean flag enabling session-scoped memoization of local artifact lookups. */
+    public static final String CONFIG_PROP_CACHE_LOOKUPS = "tracking.localRepository.cacheLookups";
+
+    /** Boolean flag enabling session-scoped cache of directory listings for tracking writes. */
+    public static final String CONFIG_PROP_CACHE_LISTINGS = "tracking.localRepository.cacheListings";
+
+    /** Maximum number of cached artifact paths (local and remote each), {@code 0} disables path caching. */
+    public static final String CONFIG_PROP_PATH_CACHE_SIZE = "tracking.localRepository.pathCacheSize";
+
+    private static final int DEFAULT_PATH_CACHE_SIZE = 16384;
+
+    /** Boolean flag (disabled by default) for maintaining the {@link ReverseIndex} of the local repository. */
+    public static final String CONFIG_PROP_REVERSE_INDEX = "tracking.reverseIndex";
+
+    /** Boolean flag (disabled by default) for maintaining the {@link UsageIndex} of the local repository. */
+    public static final String CONFIG_PROP_USAGE_INDEX = "tracking.usageIndex";
+
+    /**
+     * Storage of tracker records: {@code files} (default) for {@code .tracking/} directories or {@code blocks} for the
+     * compressed {@link BlockStore}.
+     */
+    public static final String CONFIG_PROP_STORAGE = "tracking.storage";
+
+    /** Boolean flag enabling the {@link ChainStore}, so trackers reference chains by ID instead of printing them. */
+    public static final String CONFIG_PROP_CHAIN_STORE = "tracking.chainStore";
+
+    /**
+     * Budget of the {@link TrackingOverhead} in percents of dependency collection time, {@code 0} (default) means no
+     * budget.
+     */
+    public static final String CONFIG_PROP_OVERHEAD_BUDGET = "tracking.overheadBudget";
+
     @Override
     public LocalRepositoryManager newInstance(RepositorySystemSession session, LocalRepository repository) throws NoLocalRepositoryManagerException {
-        return new TrackingLocalRepositoryManager(super.newInstance(session, repository));
+        return new TrackingLocalRepositoryManager(super.newInstance(session, repository), Config.of(session));
+    }
+
+    /**
+     * Configuration of a {@link TrackingLocalRepositoryManager}. A new configuration has the defaults of the
+     * configuration properties, {@link #of(RepositorySystemSession)} reads them from a session.
+     */
+    public static final class Config {
+
+        private boolean cacheLookups;
+        private boolean cacheListings;
+        private int pathCacheSize = DEFAULT_PATH_CACHE_SIZE;
+        private boolean reverseIndex;
+        private boolean usageIndex;
+        private boolean cacheManifest;
+        private boolean blockStore;
+        private boolean chainStore;
+        private float overheadBudget;
+
+        /**
+         * Configuration given by properties of the session.
+         */
+        public static Config of(RepositorySystemSession session) {
+            return new Config()
+                    .setCacheLookups(ConfigUtils.getBoolean(session, false, CONFIG_PROP_CACHE_LOOKUPS))
+                    .setCacheListings(ConfigUtils.getBoolean(session, false, CONFIG_PROP_CACHE_LISTINGS))
+                    .setPathCacheSize(ConfigUtils.getInteger(session, DEFAULT_PATH_CACHE_SIZE,
+                            CONFIG_PROP_PATH_CACHE_SIZE))
+                    .setReverseIndex(ConfigUtils.getBoolean(session, false, CONFIG_PROP_REVERSE_INDEX))
+                    .setUsageIndex(ConfigUtils.getBoolean(session, false, CONFIG_PROP_USAGE_INDEX))
+                    .setCacheManifest(ConfigUtils.getString(session, null,
+                            TrackingConfigurator.CONFIG_PROP_CACHE_MANIFEST) != null)
+                    .setBlockStore("blocks".equals(ConfigUtils.getString(session, "files", CONFIG_PROP_STORAGE)))
+                    .setChainStore(ConfigUtils.getBoolean(session, false, CONFIG_PROP_CHAIN_STORE))
+                    .setOverheadBudget(ConfigUtils.getFloat(session, 0f, CONFIG_PROP_OVERHEAD_BUDGET));
+        }
+
+        /** Caches results of local artifact lookups, see {@link #CONFIG_PROP_CACHE_LOOKUPS}. */
+        public Config setCacheLookups(boolean cacheLookups) {
+            this.cacheLookups = cacheLookups;
+            return this;
+        }
+
+        /** Caches listings of local repository directories, see {@link #CONFIG_PROP_CACHE_LISTINGS}. */
+        public Config setCacheListings(boolean cacheListings) {
+            this.cacheListings = cacheListings;
+            return this;
+        }
+
+        /** Maximum number of cached artifact paths, see {@link #CONFIG_PROP_PATH_CACHE_SIZE}. */
+        public Config setPathCacheSize(int pathCacheSize) {
+            this.pathCacheSize = pathCacheSize;
+            return this;
+        }
+
+        /** Maintains the {@link ReverseIndex}, see {@link #CONFIG_PROP_REVERSE_INDEX}. */
+        public Config setReverseIndex(boolean reverseIndex) {
+            this.reverseIndex = reverseIndex;
+            return this;
+        }
+
+        /** Maintains the {@link UsageIndex}, see {@link #CONFIG_PROP_USAGE_INDEX}. */
+        public Config setUsageIndex(boolean usageIndex) {
+            this.usageIndex = usageIndex;
+            return this;
+        }
+
+        /** Collects files of the {@link CacheManifest}. */
+        public Config setCacheManifest(boolean cacheManifest) {
+            this.cacheManifest = cacheManifest;
+            return this;
+        }
+
+        /** Records trackers in the {@link BlockStore}, see {@link #CONFIG_PROP_STORAGE}. */
+        public Config setBlockStore(boolean blockStore) {
+            this.blockStore = blockStore;
+            return this;
+        }
+
+        /** Stores chains in the {@link ChainStore}, see {@link #CONFIG_PROP_CHAIN_STORE}. */
+        public Config setChainStore(boolean chainStore) {
+            this.chainStore = chainStore;
+            return this;
+        }
+
+        /** Budget of the {@link TrackingOverhead}, see {@link #CONFIG_PROP_OVERHEAD_BUDGET}. */
+        public Config setOverheadBudget(float overheadBudget) {
+            this.overheadBudget = overheadBudget;
+            return this;
+        }
     }
 
     public static class TrackingLocalRepositoryManager implements LocalRepositoryManager {
 
         private final LocalRepositoryManager delegate;
 
+        /**
+         * Results of {@link #find(RepositorySystemSession, LocalArtifactRequest)} (positive and negative) keyed by
+         * local path of the artifact and then by request context and repositories. {@code null} when disabled.
+         */
+        private final ConcurrentMap<String, ConcurrentMap<LookupKey, CachedLookup>> lookups;
+
+        /** Listings of local repository directories, {@code null} when disabled. */
+        private final DirectoryListingCache listings;
+
+        /** Paths (and directories) of local artifacts, {@code null} when disabled. */
+        private final BoundedCache<Artifact, LocalPath> localPaths;
+
+        /** Paths of remote artifacts, {@code null} when disabled. */
+        private final BoundedCache<RemotePathKey, String> remotePaths;
+
+        /** Reverse dependency index, {@code null} when disabled. */
+        private final ReverseIndex reverseIndex;
+
+        /** Usage index, {@code null} when disabled. */
+        private final UsageIndex usageIndex;
+
+        /** Files used during the session, {@code null} when the cache manifest is not written. */
+        private final CacheManifest cacheManifest;
+
+        /** Compressed tracker storage, {@code null} when trackers are written to {@code .tracking/} directories. */
+        private final BlockStore blockStore;
+
+        /** Store of dependency chains, {@code null} when trackers print whole chains. */
+        private final ChainStore chainStore;
+
+        /** Trackers checked (and written if their chain changed) during the session. */
+        private final Set<File> checkedTrackers = Collections.newSetFromMap(new ConcurrentHashMap<File, Boolean>());
+
+        /** Time spent in tracking code. */
+        private final TrackingOverhead overhead;
+
+        /** Latencies of downloads. */
+        private final DownloadStats downloadStats = new DownloadStats();
+
+        /** Resolution time by top-level artifact. */
+        private final ResolutionCost resolutionCost = new ResolutionCost();
+
+        private final File basedir;
+
+        private final AtomicLong memoryLookups = new AtomicLong();
+        private final AtomicLong diskLookups = new AtomicLong();
+
         public TrackingLocalRepositoryManager(LocalRepositoryManager delegate) {
+            this(delegate, new Config());
+        }
+
+        public TrackingLocalRepositoryManager(LocalRepositoryManager delegate, Config config) {
             this.delegate = delegate;
+            this.basedir = delegate.getRepository().getBasedir();
+            this.lookups = config.cacheLookups
+                    ? new ConcurrentHashMap<String, ConcurrentMap<LookupKey, CachedLookup>>() : null;
+            this.listings = config.cacheListings ? new DirectoryListingCache() : null;
+            this.localPaths = config.pathCacheSize > 0
+                    ? new BoundedCache<Artifact, LocalPath>(config.pathCacheSize) : null;
+            this.remotePaths = config.pathCacheSize > 0
+                    ? new BoundedCache<RemotePathKey, String>(config.pathCacheSize) : null;
+            this.reverseIndex = config.reverseIndex ? new ReverseIndex(basedir) : null;
+            this.usageIndex = config.usageIndex ? new UsageIndex(basedir) : null;
+            this.cacheManifest = config.cacheManifest ? new CacheManifest(basedir) : null;
+            this.blockStore = config.blockStore ? new BlockStore(basedir) : null;
+            this.chainStore = config.chainStore ? new ChainStore(basedir) : null;
+            this.overhead = new TrackingOverhead(config.overheadBudget);
+        }
+
+        /**
+         * Returns tracking local repository manager of given session or {@code null} if the session uses other manager.
+         */
+        public static TrackingLocalRepositoryManager of(RepositorySystemSession session) {
+            LocalRepositoryManager lrm = session.getLocalRepositoryManager();
+            return lrm instanceof TrackingLocalRepositoryManager ? (TrackingLocalRepositoryManager) lrm : null;
+        }
+
+        /** Directory listings cache or {@code null} if listings are not cached. */
+        public DirectoryListingCache getListings() {
+            return listings;
+        }
+
+        /** Reverse dependency index or {@code null} if it's not maintained. */
+        public ReverseIndex getReverseIndex() {
+            return reverseIndex;
+        }
+
+        /** Usage index or {@code null} if it's not maintained. */
+        public UsageIndex getUsageIndex() {
+            return usageIndex;
+        }
+
+        /** Cache manifest or {@code null} if it's not written. */
+        public CacheManifest getCacheManifest() {
+            return cacheManifest;
+        }
+
+        /** Compressed tracker storage or {@code null} if trackers are written to {@code .tracking/} directories. */
+        public BlockStore getBlockStore() {
+            return blockStore;
+        }
+
+        /** Store of dependency chains or {@code null} if trackers print whole chains. */
+        public ChainStore getChainStore() {
+            return chainStore;
+        }
+
+        /** Trackers already checked during the session, so each is rewritten at most once. */
+        public Set<File> getCheckedTrackers() {
+            return checkedTrackers;
+        }
+
+        /** Time spent in tracking code during the session. */
+        public TrackingOverhead getOverhead() {
+            return overhead;
+        }
+
+        /** Latencies of downloads during the session. */
+        public DownloadStats getDownloadStats() {
+            return downloadStats;
+        }
+
+        /** Resolution time by top-level artifact during the session. */
+        public ResolutionCost getResolutionCost() {
+            return resolutionCost;
+        }
+
+        public boolean isCachingLookups() {
+            return lookups != null;
+        }
+
+        /** Number of artifact lookups answered from memory. */
+        public long getMemoryLookups() {
+            return memoryLookups.get();
+        }
+
+        /** Number of artifact lookups delegated to the local repository on disk. */
+        public long getDiskLookups() {
+            return diskLookups.get();
         }
 
         @Override
@@ -55,12 +323,40 @@ public class TrackingLocalRepositoryManagerFactory extends EnhancedLocalReposito
 
         @Override
         public String getPathForLocalArtifact(Artifact artifact) {
-            return delegate.getPathForLocalArtifact(artifact);
+            return localPath(artifact).path;
+        }
+
+        /**
+         * Returns the directory containing the local artifact (which may not exist yet).
+         */
+        public File getLocalArtifactDirectory(Artifact artifact) {
+            return localPath(artifact).getDirectory();
         }
 
         @Override
         public String getPathForRemoteArtifact(Artifact artifact, RemoteRepository repository, String context) {
-            return delegate.getPathForRemoteArtifact(artifact, repository, context);
+            if (remotePaths == null) {
+                return delegate.getPathForRemoteArtifact(artifact, repository, context);
+            }
+            RemotePathKey key = new RemotePathKey(artifact, repository, context);
+            String path = remotePaths.get(key);
+            if (path == null) {
+                path = delegate.getPathForRemoteArtifact(artifact, repository, context);
+                remotePaths.put(key, path);
+            }
+            return path;
+        }
+
+        private LocalPath localPath(Artifact artifact) {
+            if (localPaths == null) {
+                return new LocalPath(basedir, delegate.getPathForLocalArtifact(artifact));
+            }
+            LocalPath path = localPaths.get(artifact);
+            if (path == null) {
+                path = new LocalPath(basedir, delegate.getPathForLocalArtifact(artifact));
+                localPaths.put(artifact, path);
+            }
+            return path;
         }
 
         @Override
@@ -75,11 +371,28 @@ public class TrackingLocalRepositoryManagerFactory extends EnhancedLocalReposito
 
         @Override
         public LocalArtifactResult find(RepositorySystemSession session, LocalArtifactRequest request) {
-            LocalArtifactResult result = delegate.find(session, request);
+            LocalArtifactResult result = lookups == null
+                    ? delegate.find(session, request) : cachedFind(session, request);
             if (result != null && result.getFile() != null) {
+                used(request.getArtifact());
+                if (overhead.isDegraded()) {
+                    overhead.skipped();
+                    return result;
+                }
                 // track the dependency chain
-                TrackingRepositoryListener.trackDependencies(TrackingRepositoryListener.stack,
-                        result.getFile().getParentFile(), result.getRequest().getArtifact(), null);
+                boolean measured = overhead.isMeasured();
+                long start = measured ? TrackingOverhead.start() : 0L;
+                long cpuStart = measured ? TrackingOverhead.startCpu() : -1L;
+                Object jfr = CollectionEvents.begin(CollectionEvents.TRACKING_WRITE);
+                try {
+                    TrackingRepositoryListener.trackDependencies(TrackingRepositoryListener.stack,
+                            result.getFile().getParentFile(), result.getRequest().getArtifact(), null, this);
+                } finally {
+                    CollectionEvents.end(jfr, result.getRequest().getArtifact(), "tracker");
+                }
+                if (measured) {
+                    overhead.tracker(start, cpuStart);
+                }
             }
             return result;
         }
@@ -87,16 +400,177 @@ public class TrackingLocalRepositoryManagerFactory extends EnhancedLocalReposito
         @Override
         public void add(RepositorySystemSession session, LocalArtifactRegistration request) {
             delegate.add(session, request);
+            used(request.getArtifact());
+            if (lookups != null) {
+                lookups.remove(localPath(request.getArtifact()).path);
+            }
+        }
+
+        private void used(Artifact artifact) {
+            if (usageIndex != null || cacheManifest != null) {
+                String path = localPath(artifact).path;
+                if (usageIndex != null) {
+                    usageIndex.used(path);
+                }
+                if (cacheManifest != null) {
+                    cacheManifest.artifact(path);
+                }
+            }
+        }
+
+        private LocalArtifactResult cachedFind(RepositorySystemSession session, LocalArtifactRequest request) {
+            String path = localPath(request.getArtifact()).path;
+            ConcurrentMap<LookupKey, CachedLookup> forArtifact = lookups.get(path);
+            if (forArtifact == null) {
+                ConcurrentMap<LookupKey, CachedLookup> newMap = new ConcurrentHashMap<>(4);
+                forArtifact = lookups.putIfAbsent(path, newMap);
+                if (forArtifact == null) {
+                    forArtifact = newMap;
+                }
+            }
+            LookupKey key = new LookupKey(request.getContext(), request.getRepositories());
+            CachedLookup cached = forArtifact.get(key);
+            if (cached != null) {
+                memoryLookups.incrementAndGet();
+                return cached.toResult(request);
+            }
+            diskLookups.incrementAndGet();
+            LocalArtifactResult result = delegate.find(session, request);
+            if (result != null) {
+                forArtifact.put(key, new CachedLookup(result));
+            }
+            return result;
         }
 
         @Override
         public LocalMetadataResult find(RepositorySystemSession session, LocalMetadataRequest request) {
-            return delegate.find(session, request);
+            LocalMetadataResult result = delegate.find(session, request);
+            if (cacheManifest != null && result != null && result.getFile() != null) {
+                cacheManifest.metadata(result.getFile());
+            }
+            return result;
         }
 
         @Override
         public void add(RepositorySystemSession session, LocalMetadataRegistration request) {
             delegate.add(session, request);
+            if (cacheManifest != null && request.getMetadata().getFile() != null) {
+                cacheManifest.metadata(request.getMetadata().getFile());
+            }
+        }
+    }
+
+    /**
+     * Local path of an artifact with lazily created {@link File} objects.
+     */
+    private static final class LocalPath {
+
+        private final File basedir;
+        private final String path;
+        private File file;
+        private File directory;
+
+        LocalPath(File basedir, String path) {
+            this.basedir = basedir;
+            this.path = path;
+        }
+
+        File getFile() {
+            if (file == null) {
+                file = new File(basedir, path);
+            }
+            return file;
+        }
+
+        File getDirectory() {
+            if (directory == null) {
+                directory = getFile().getParentFile();
+            }
+            return directory;
+        }
+    }
+
+    private static final class RemotePathKey {
+
+        private final Artifact artifact;
+        private final RemoteRepository repository;
+        private final String context;
+        private final int hashCode;
+
+        RemotePathKey(Artifact artifact, RemoteRepository repository, String context) {
+            this.artifact = artifact;
+            this.repository = repository;
+            this.context = context;
+            this.hashCode = Objects.hash(artifact, repository, context);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof RemotePathKey)) {
+                return false;
+            }
+            RemotePathKey that = (RemotePathKey) obj;
+            return artifact.equals(that.artifact) && Objects.equals(repository, that.repository)
+                    && Objects.equals(context, that.context);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static final class LookupKey {
+
+        private final String context;
+        private final List<RemoteRepository> repositories;
+        private final int hashCode;
+
+        LookupKey(String context, List<RemoteRepository> repositories) {
+            this.context = context;
+            this.repositories = repositories;
+            this.hashCode = Objects.hash(context, repositories);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof LookupKey)) {
+                return false;
+            }
+            LookupKey that = (LookupKey) obj;
+            return Objects.equals(context, that.context) && Objects.equals(repositories, that.repositories);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static final class CachedLookup {
+
+        private final File file;
+        private final boolean available;
+        private final RemoteRepository repository;
+
+        CachedLookup(LocalArtifactResult result) {
+            this.file = result.getFile();
+            this.available = result.isAvailable();
+            this.repository = result.getRepository();
+        }
+
+        LocalArtifactResult toResult(LocalArtifactRequest request) {
+            LocalArtifactResult result = new LocalArtifactResult(request);
+            result.setFile(file);
+            result.setAvailable(available);
+            result.setRepository(repository);
+            return result;
         }
     }
 
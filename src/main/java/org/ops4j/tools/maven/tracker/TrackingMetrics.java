@@ -0,0 +1,166 @@
+/*
+ * Copyright 2022 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.tools.maven.tracker;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.eclipse.aether.internal.impl.collect.CollectionMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Platform MBean with live metrics of dependency collection and tracking, readable with jconsole, VisualVM or other
+ * local JMX clients. Nothing is computed on the hot paths - counters are updated as
+ * {@link java.util.concurrent.atomic.LongAdder}s by the collector and everything else is read from the session's
+ * {@link TrackingLocalRepositoryManagerFactory.TrackingLocalRepositoryManager} when an attribute is read.
+ */
+public class TrackingMetrics implements TrackingMetricsMBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TrackingMetrics.class);
+
+    public static final String OBJECT_NAME = "org.ops4j.tools.maven:type=TrackingMetrics";
+
+    private static final TrackingMetrics INSTANCE = new TrackingMetrics();
+
+    private volatile WeakReference<TrackingLocalRepositoryManagerFactory.TrackingLocalRepositoryManager> session =
+            new WeakReference<>(null);
+
+    /**
+     * Registers the MBean and makes given manager the source of session values. An MBean registered by another class
+     * loader (e.g. an older extension realm of a daemon JVM) is replaced, so it doesn't keep its class loader and the
+     * metrics of its own {@link CollectionMetrics}.
+     */
+    public static synchronized void register(TrackingLocalRepositoryManagerFactory.TrackingLocalRepositoryManager lrm) {
+        INSTANCE.session = new WeakReference<>(lrm);
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                if (server.getClassLoaderFor(name) == TrackingMetrics.class.getClassLoader()) {
+                    return;
+                }
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(INSTANCE, name);
+        } catch (InstanceAlreadyExistsException ignored) {
+            // registered concurrently
+        } catch (JMException | SecurityException e) {
+            LOG.debug("Can't register {} MBean: {}", OBJECT_NAME, e.getMessage());
+        }
+    }
+
+    @Override
+    public long getActiveCollections() {
+        return CollectionMetrics.getActiveCollections();
+    }
+
+    @Override
+    public long getCollections() {
+        return CollectionMetrics.getCollections();
+    }
+
+    @Override
+    public long getNodesProcessed() {
+        return CollectionMetrics.getNodes();
+    }
+
+    @Override
+    public double getDescriptorCacheHitRate() {
+        return CollectionMetrics.getDescriptorHitRate();
+    }
+
+    @Override
+    public double getVersionRangeCacheHitRate() {
+        return CollectionMetrics.getConstraintHitRate();
+    }
+
+    @Override
+    public int getArtifactPoolSize() {
+        return CollectionMetrics.getPoolSizes()[0];
+    }
+
+    @Override
+    public int getDependencyPoolSize() {
+        return CollectionMetrics.getPoolSizes()[1];
+    }
+
+    @Override
+    public int getDescriptorCacheSize() {
+        return CollectionMetrics.getPoolSizes()[2];
+    }
+
+    @Override
+    public int getVersionRangeCacheSize() {
+        return CollectionMetrics.getPoolSizes()[3];
+    }
+
+    @Override
+    public int getTrackingQueueDepth() {
+        TrackingLocalRepositoryManagerFactory.TrackingLocalRepositoryManager lrm = session.get();
+        if (lrm == null) {
+            return 0;
+        }
+        int depth = 0;
+        if (lrm.getReverseIndex() != null) {
+            depth += lrm.getReverseIndex().getPending();
+        }
+        if (lrm.getChainStore() != null) {
+            depth += lrm.getChainStore().getPending();
+        }
+        if (lrm.getBlockStore() != null) {
+            depth += lrm.getBlockStore().getPending();
+        }
+        return depth;
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return TrackingFiles.getWritten();
+    }
+
+    @Override
+    public double getTrackingOverheadPercent() {
+        TrackingLocalRepositoryManagerFactory.TrackingLocalRepositoryManager lrm = session.get();
+        return lrm == null ? 0d : lrm.getOverhead().getPercent();
+    }
+
+    @Override
+    public boolean isTrackingDegraded() {
+        TrackingLocalRepositoryManagerFactory.TrackingLocalRepositoryManager lrm = session.get();
+        return lrm != null && lrm.getOverhead().isDegraded();
+    }
+
+    @Override
+    public String[] getDownloads() {
+        TrackingLocalRepositoryManagerFactory.TrackingLocalRepositoryManager lrm = session.get();
+        if (lrm == null) {
+            return new String[0];
+        }
+        List<DownloadStats.Repository> repositories = lrm.getDownloadStats().slowestRepositories(Integer.MAX_VALUE);
+        String[] result = new String[repositories.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = repositories.get(i).toString();
+        }
+        return result;
+    }
+
+}
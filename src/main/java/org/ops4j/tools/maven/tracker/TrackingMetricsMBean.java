@@ -0,0 +1,66 @@
+/*
+ * Copyright 2022 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.tools.maven.tracker;
+
+/**
+ * Live metrics of dependency collection and tracking, registered as {@link TrackingMetrics#OBJECT_NAME}. Counters
+ * are JVM-wide (all builds of a daemon), session values come from the most recent build.
+ */
+public interface TrackingMetricsMBean {
+
+    /** Dependency collections in progress. */
+    long getActiveCollections();
+
+    /** Dependency collections started since the JVM started. */
+    long getCollections();
+
+    /** Dependency nodes processed since the JVM started. */
+    long getNodesProcessed();
+
+    /** Fraction of artifact descriptor lookups served from collection caches. */
+    double getDescriptorCacheHitRate();
+
+    /** Fraction of version range lookups served from collection caches. */
+    double getVersionRangeCacheHitRate();
+
+    /** Interned artifacts in the pool of the most recent collection. */
+    int getArtifactPoolSize();
+
+    /** Interned dependencies in the pool of the most recent collection. */
+    int getDependencyPoolSize();
+
+    /** Cached artifact descriptors of the most recent collection. */
+    int getDescriptorCacheSize();
+
+    /** Cached version ranges of the most recent collection. */
+    int getVersionRangeCacheSize();
+
+    /** Characters of reverse index, chain store and block store records of the session waiting to be written. */
+    int getTrackingQueueDepth();
+
+    /** Bytes written to tracking files since the JVM started. */
+    long getBytesWritten();
+
+    /** Tracking overhead of the session in percents of its dependency collection time. */
+    double getTrackingOverheadPercent();
+
+    /** Whether tracking of the session is degraded to counters. */
+    boolean isTrackingDegraded();
+
+    /** Downloads of the session per remote repository: counts, sizes and p50/p95/p99 latencies. */
+    String[] getDownloads();
+
+}
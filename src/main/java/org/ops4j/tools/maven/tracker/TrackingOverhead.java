@@ -0,0 +1,251 @@
+/*
+ * Copyright 2022 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.tools.maven.tracker;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Time spent by the extension in its own code during a session: {@link TrackingRepositoryListener} callbacks, trackers
+ * written for local artifact lookups and chain push/pop in {@link TrackingDependencyCollector}, compared with the time
+ * of whole dependency collections.
+ *
+ * The overhead is only measured when there's a budget ({@link #isMeasured()}), otherwise callers don't read clocks
+ * at all. Wall time is measured for all three, CPU time of the current thread (when the JVM supports it) only for
+ * listener callbacks and trackers - reading the CPU clock would cost more than a push/pop. Only overhead of code
+ * running inside a collection on the same thread is compared with the collection time (events of artifact resolution
+ * after collection are reported, but they're not part of it). When that exceeds the budget (percents of collection
+ * wall time), tracking is degraded for the rest of the session: events and lookups are only counted, no trackers,
+ * chains or dependency tracker records are written.
+ */
+public class TrackingOverhead {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TrackingOverhead.class);
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private static final boolean CPU_TIME = cpuTimeSupported();
+
+    /** Collection time before the budget is checked, so a few slow first writes don't degrade tracking. */
+    private static final long MIN_COLLECTION_TIME = TimeUnit.SECONDS.toNanos(1);
+
+    private final float budget;
+
+    private final LongAdder listenerTime = new LongAdder();
+    private final LongAdder trackerTime = new LongAdder();
+    private final LongAdder stackTime = new LongAdder();
+    private final LongAdder cpuTime = new LongAdder();
+    private final LongAdder collectionOverhead = new LongAdder();
+    private final LongAdder collectionTime = new LongAdder();
+    private final LongAdder collections = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    private volatile boolean degraded;
+
+    /** Number of collections running on the current thread. */
+    private final ThreadLocal<int[]> collecting = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[1];
+        }
+    };
+
+    public TrackingOverhead(float budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Whether the overhead is measured - only with a budget. When it's not, callers don't call {@link #start()},
+     * {@link #startCpu()} and the methods ending measured sections.
+     */
+    public boolean isMeasured() {
+        return budget > 0;
+    }
+
+    /**
+     * Start of a measured section - wall time in nanoseconds.
+     */
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Start of a section with measured CPU time - CPU time of the current thread in nanoseconds or {@code -1}.
+     */
+    public static long startCpu() {
+        return CPU_TIME ? THREADS.getCurrentThreadCpuTime() : -1L;
+    }
+
+    /**
+     * Ends a listener callback started at given wall and CPU times.
+     */
+    public void listener(long start, long cpuStart) {
+        add(listenerTime, System.nanoTime() - start);
+        cpu(cpuStart);
+    }
+
+    /**
+     * Ends writing of a tracker for a local artifact lookup started at given wall and CPU times.
+     */
+    public void tracker(long start, long cpuStart) {
+        add(trackerTime, System.nanoTime() - start);
+        cpu(cpuStart);
+    }
+
+    /**
+     * Adds wall time of a chain push or pop.
+     */
+    public void stack(long nanos) {
+        add(stackTime, nanos);
+    }
+
+    /**
+     * Counts an event or lookup which would be tracked if tracking wasn't degraded.
+     */
+    public void skipped() {
+        skipped.increment();
+    }
+
+    /**
+     * Whether tracking is degraded to counters only.
+     */
+    public boolean isDegraded() {
+        return degraded;
+    }
+
+    /**
+     * Starts a dependency collection on the current thread, ended with {@link #collected(long)}.
+     */
+    public void collecting() {
+        if (isMeasured()) {
+            collecting.get()[0]++;
+        }
+    }
+
+    /**
+     * Adds wall time of a whole dependency collection and degrades tracking if the overhead is over budget.
+     */
+    public void collected(long nanos) {
+        collectionTime.add(nanos);
+        collections.increment();
+        if (!isMeasured()) {
+            return;
+        }
+        collecting.get()[0]--;
+        if (degraded) {
+            return;
+        }
+        long collection = collectionTime.sum();
+        if (collection < MIN_COLLECTION_TIME) {
+            return;
+        }
+        double percent = percent(collectionOverhead.sum(), collection);
+        if (percent > budget) {
+            synchronized (this) {
+                if (!degraded) {
+                    degraded = true;
+                    LOG.warn("Tracking overhead {}% of {} ms dependency collection time exceeds the budget of {}%,"
+                                    + " only counting tracked events for the rest of the session",
+                            String.format("%.1f", percent), TimeUnit.NANOSECONDS.toMillis(collection), budget);
+                }
+            }
+        }
+    }
+
+    public float getBudget() {
+        return budget;
+    }
+
+    /** Wall time in nanoseconds spent in tracking code, {@code 0} when not measured. */
+    public long getOverheadTime() {
+        return overheadTime();
+    }
+
+    /** CPU time in nanoseconds spent in listener callbacks and trackers, {@code 0} when not supported. */
+    public long getCpuTime() {
+        return cpuTime.sum();
+    }
+
+    /** Wall time in nanoseconds of dependency collections. */
+    public long getCollectionTime() {
+        return collectionTime.sum();
+    }
+
+    /** Number of events and lookups only counted since tracking was degraded. */
+    public long getSkipped() {
+        return skipped.sum();
+    }
+
+    /**
+     * Tracking overhead inside dependency collections in percents of their time.
+     */
+    public double getPercent() {
+        return percent(collectionOverhead.sum(), collectionTime.sum());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%d ms (listener %d ms, trackers %d ms, chains %d ms",
+                TimeUnit.NANOSECONDS.toMillis(overheadTime()), TimeUnit.NANOSECONDS.toMillis(listenerTime.sum()),
+                TimeUnit.NANOSECONDS.toMillis(trackerTime.sum()), TimeUnit.NANOSECONDS.toMillis(stackTime.sum())));
+        if (CPU_TIME) {
+            sb.append(String.format(", %d ms CPU", TimeUnit.NANOSECONDS.toMillis(cpuTime.sum())));
+        }
+        sb.append(String.format("), %d ms inside %d dependency collections of %d ms (%.1f%%)",
+                TimeUnit.NANOSECONDS.toMillis(collectionOverhead.sum()), collections.sum(),
+                TimeUnit.NANOSECONDS.toMillis(collectionTime.sum()), getPercent()));
+        if (degraded) {
+            sb.append(String.format(", degraded to counters with %d events not tracked", skipped.sum()));
+        }
+        return sb.toString();
+    }
+
+    private long overheadTime() {
+        return listenerTime.sum() + trackerTime.sum() + stackTime.sum();
+    }
+
+    private void add(LongAdder time, long nanos) {
+        time.add(nanos);
+        if (collecting.get()[0] > 0) {
+            collectionOverhead.add(nanos);
+        }
+    }
+
+    private void cpu(long cpuStart) {
+        if (cpuStart >= 0) {
+            cpuTime.add(THREADS.getCurrentThreadCpuTime() - cpuStart);
+        }
+    }
+
+    private static double percent(long part, long whole) {
+        return whole == 0 ? 0d : part * 100d / whole;
+    }
+
+    private static boolean cpuTimeSupported() {
+        try {
+            return THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled();
+        } catch (UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+}
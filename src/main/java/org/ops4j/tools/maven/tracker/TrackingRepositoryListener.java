@@ -15,12 +15,16 @@
  */
 package org.ops4j.tools.maven.tracker;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedDeque;
 
 import org.apache.maven.model.InputLocation;
@@ -36,6 +40,8 @@ import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.collection.CollectRequest;
 import org.eclipse.aether.graph.Dependency;
 import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.internal.impl.collect.CollectionEvents;
+import org.eclipse.aether.internal.impl.collect.TraceRecorder;
 import org.eclipse.aether.resolution.ArtifactDescriptorRequest;
 import org.eclipse.aether.resolution.ArtifactRequest;
 import org.eclipse.aether.resolution.DependencyRequest;
@@ -45,14 +51,19 @@ public class TrackingRepositoryListener extends AbstractRepositoryListener {
 
     static Deque<DependencyNode> stack = new ConcurrentLinkedDeque<>();
 
+    /** IDs of the chains in {@link #stack} (when {@link ChainStore} is used), the head is the ID of the whole stack. */
+    static Deque<Long> chainIds = new ConcurrentLinkedDeque<>();
+
     @Override
     public void artifactDownloaded(RepositoryEvent event) {
+        downloaded(event);
         write(event);
         super.artifactDownloaded(event);
     }
 
     @Override
     public void artifactDownloading(RepositoryEvent event) {
+        downloading(event);
         super.artifactDownloading(event);
     }
 
@@ -64,12 +75,14 @@ public class TrackingRepositoryListener extends AbstractRepositoryListener {
 
     @Override
     public void metadataDownloaded(RepositoryEvent event) {
+        downloaded(event);
         write(event);
         super.metadataDownloaded(event);
     }
 
     @Override
     public void metadataDownloading(RepositoryEvent event) {
+        downloading(event);
         super.metadataDownloading(event);
     }
 
@@ -79,18 +92,80 @@ public class TrackingRepositoryListener extends AbstractRepositoryListener {
         super.metadataResolved(event);
     }
 
+    private static void downloading(RepositoryEvent event) {
+        TrackingLocalRepositoryManagerFactory.TrackingLocalRepositoryManager lrm =
+                TrackingLocalRepositoryManagerFactory.TrackingLocalRepositoryManager.of(event.getSession());
+        if (lrm != null) {
+            lrm.getDownloadStats().downloading(event);
+        }
+    }
+
+    private static void downloaded(RepositoryEvent event) {
+        TrackingLocalRepositoryManagerFactory.TrackingLocalRepositoryManager lrm =
+                TrackingLocalRepositoryManagerFactory.TrackingLocalRepositoryManager.of(event.getSession());
+        if (lrm != null) {
+            long nanos = lrm.getDownloadStats().downloaded(event);
+            // downloads during collection are part of the time of the collected chain
+            if (nanos >= 0 && stack.isEmpty()) {
+                lrm.getResolutionCost().download(event.getTrace(), nanos);
+            }
+            if (nanos >= 0 && TraceRecorder.isRecording()) {
+                long end = System.nanoTime();
+                TraceRecorder.span("download", "download", end - nanos, end,
+                        event.getArtifact() != null ? event.getArtifact() : event.getMetadata(),
+                        event.getRepository() == null ? null : event.getRepository().getId());
+            }
+        }
+    }
+
+    private static final String CHAIN_PREFIX = "# chain ";
+
     private static final String[] INDENTS = new String[] {
             "", "  ", "    ", "      ", "        ", "          ", "            "
     };
 
+    /**
+     * Tracks given event, measuring the time as {@link TrackingOverhead} of the session and as a JFR event. When
+     * tracking is degraded, the event is only counted.
+     */
     private void write(RepositoryEvent event) {
+        TrackingLocalRepositoryManagerFactory.TrackingLocalRepositoryManager lrm =
+                TrackingLocalRepositoryManagerFactory.TrackingLocalRepositoryManager.of(event.getSession());
+        TrackingOverhead overhead = lrm == null ? null : lrm.getOverhead();
+        if (overhead != null && overhead.isDegraded()) {
+            overhead.skipped();
+            return;
+        }
+        boolean measured = overhead != null && overhead.isMeasured();
+        long start = measured ? TrackingOverhead.start() : 0L;
+        long cpuStart = measured ? TrackingOverhead.startCpu() : -1L;
+        Object jfr = CollectionEvents.begin(CollectionEvents.TRACKING_WRITE);
+        try {
+            track(event);
+        } finally {
+            CollectionEvents.end(jfr, event.getArtifact() != null ? event.getArtifact() : event.getMetadata(),
+                    event.getType().name());
+            if (measured) {
+                overhead.listener(start, cpuStart);
+            }
+        }
+    }
+
+    private void track(RepositoryEvent event) {
         if (event.getFile() == null) {
             if (event.getArtifact() != null) {
                 // missing artifact
-                File dir = event.getSession().getLocalRepository().getBasedir();
-                dir = new File(dir, event.getSession().getLocalRepositoryManager().getPathForLocalArtifact(event.getArtifact()));
-                dir = dir.getParentFile();
-                trackDependencies(stack, dir, event.getArtifact(), event);
+                TrackingLocalRepositoryManagerFactory.TrackingLocalRepositoryManager lrm =
+                        TrackingLocalRepositoryManagerFactory.TrackingLocalRepositoryManager.of(event.getSession());
+                File dir;
+                if (lrm != null) {
+                    dir = lrm.getLocalArtifactDirectory(event.getArtifact());
+                } else {
+                    dir = event.getSession().getLocalRepository().getBasedir();
+                    dir = new File(dir, event.getSession().getLocalRepositoryManager().getPathForLocalArtifact(event.getArtifact()));
+                    dir = dir.getParentFile();
+                }
+                trackDependencies(stack, dir, event.getArtifact(), event, lrm);
             }
             return;
         }
@@ -99,7 +174,9 @@ public class TrackingRepositoryListener extends AbstractRepositoryListener {
             return;
         }
         File dir = event.getFile().getParentFile();
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(new File(dir, "_dependency-tracker.txt"), true))) {
+        try {
+            // the record is appended at once, so records of concurrent builds don't interleave
+            StringWriter writer = new StringWriter();
             RequestTrace trace = event.getTrace();
             writer.write("~~~\n");
             int indent = 0;
@@ -138,17 +215,24 @@ public class TrackingRepositoryListener extends AbstractRepositoryListener {
                             INDENTS[indent], a.getGroupId(), a.getArtifactId(), a.getExtension(),
                             a.getClassifier() != null ? ":" + a.getClassifier() : "",
                             a.getVersion(), event.getRepository() == null ? "?" : event.getRepository().toString()));
-                    int id2 = 1;
-                    for (DependencyNode dn : stack) {
-                        StringBuilder indent2 = new StringBuilder();
-                        for (int i = 0; i < indent + id2; i++) {
-                            indent2.append("  ");
+                    TrackingLocalRepositoryManagerFactory.TrackingLocalRepositoryManager lrm =
+                            TrackingLocalRepositoryManagerFactory.TrackingLocalRepositoryManager.of(event.getSession());
+                    Long chainId = lrm != null && lrm.getChainStore() != null ? chainIds.peekFirst() : null;
+                    if (chainId != null) {
+                        writer.write(String.format("%s   -> chain: %s\n", INDENTS[indent], ChainStore.toString(chainId)));
+                    } else {
+                        int id2 = 1;
+                        for (DependencyNode dn : stack) {
+                            StringBuilder indent2 = new StringBuilder();
+                            for (int i = 0; i < indent + id2; i++) {
+                                indent2.append("  ");
+                            }
+                            id2++;
+                            indent2.append(" -> ");
+                            writer.write(String.format("%s%s (context: %s)\n", indent2.toString(), dn.toString(), dn.getRequestContext()));
                         }
-                        id2++;
-                        indent2.append(" -> ");
-                        writer.write(String.format("%s%s (context: %s)\n", indent2.toString(), dn.toString(), dn.getRequestContext()));
                     }
-                    trackDependencies(stack, dir, event.getArtifact(), event);
+                    trackDependencies(stack, dir, event.getArtifact(), event, lrm);
 
                     indent++;
                 } else if (data instanceof CollectRequest) {
@@ -184,47 +268,155 @@ public class TrackingRepositoryListener extends AbstractRepositoryListener {
                 }
                 trace = trace.getParent();
             }
+            TrackingFiles.append(new File(dir, "_dependency-tracker.txt"), writer.toString());
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
     public static void trackDependencies(Deque<DependencyNode> stack, File dir, Artifact artifact, RepositoryEvent event) {
+        trackDependencies(stack, dir, artifact, event, null);
+    }
+
+    /**
+     * Writes a tracker file for the top-level artifact of the {@code stack} chain into {@code .tracking/} directory
+     * next to the tracked artifact. The tracker ends with the chain ID (see {@link ChainStore}) and an existing tracker
+     * is rewritten only when its chain ID differs from the current one - at most once per session, so different chains
+     * from the same top-level artifact don't replace each other. When tracking local repository manager is given, the
+     * chain is recorded in its {@link ReverseIndex} and existence checks are answered from its cached directory
+     * listings. When the manager uses a {@link BlockStore}, the tracker is recorded there instead (again when its
+     * chain ID differs from the stored ones). When it uses a
+     * {@link ChainStore}, the tracker references the chain by its ID.
+     */
+    public static void trackDependencies(Deque<DependencyNode> stack, File dir, Artifact artifact, RepositoryEvent event,
+            TrackingLocalRepositoryManagerFactory.TrackingLocalRepositoryManager lrm) {
         if (artifact == null) {
             return;
         }
+        DirectoryListingCache listings = lrm == null ? null : lrm.getListings();
+        ReverseIndex reverseIndex = lrm == null ? null : lrm.getReverseIndex();
+        BlockStore blockStore = lrm == null ? null : lrm.getBlockStore();
+        Long chainId = lrm != null && lrm.getChainStore() != null ? chainIds.peekFirst() : null;
+        if (blockStore != null) {
+            DependencyNode dep = TrackingRepositoryListener.stack.peekLast();
+            if (dep != null) {
+                if (reverseIndex != null && (event == null || event.getException() == null)) {
+                    reverseIndex.record(artifact.toString(), dep.getArtifact().toString(), chainId(stack, chainId));
+                }
+                String chain = chainId(stack, chainId);
+                blockStore.record(artifact.toString(), trackerName(dep, event), chain,
+                        render(artifact, event, chainId) + CHAIN_PREFIX + chain + "\n");
+            }
+            return;
+        }
         File dir2 = new File(dir, ".tracking");
-        if (dir2.mkdirs() || dir2.isDirectory()) {
+        boolean exists;
+        if (listings != null) {
+            exists = listings.exists(dir2);
+            if (!exists && (dir2.mkdirs() || dir2.isDirectory())) {
+                exists = true;
+                listings.added(dir2);
+            }
+        } else {
+            exists = dir2.mkdirs() || dir2.isDirectory();
+        }
+        if (exists) {
             DependencyNode dep = TrackingRepositoryListener.stack.peekLast();
             if (dep != null) {
-                String ext = ".dep";
-                if (event != null && event.getException() != null) {
-                    ext = ".miss";
+                if (reverseIndex != null && (event == null || event.getException() == null)) {
+                    reverseIndex.record(artifact.toString(), dep.getArtifact().toString(), chainId(stack, chainId));
                 }
-                String directRequirer = dep.getArtifact().toString().replace(":", "_") + ext;
-                File tracker = new File(dir2, directRequirer);
-                if (!tracker.isFile()) {
-                    try (BufferedWriter writer = new BufferedWriter(new FileWriter(tracker))) {
-                        writer.write(String.format("%s\n", artifact.toString()));
-                        int indent = 0;
-                        for (DependencyNode dn : TrackingRepositoryListener.stack) {
-                            StringBuilder indent2 = new StringBuilder();
-                            for (int i = 0; i < indent; i++) {
-                                indent2.append("  ");
-                            }
-                            indent++;
-                            indent2.append(" -> ");
-                            writer.write(String.format("%s%s (context: %s)\n", indent2.toString(), dn.toString(), dn.getRequestContext()));
+                File tracker = new File(dir2, trackerName(dep, event));
+                Set<File> checked = lrm == null ? null : lrm.getCheckedTrackers();
+                if (checked == null || checked.add(tracker)) {
+                    String chain = chainId(stack, chainId);
+                    boolean current;
+                    if (listings != null ? !listings.exists(tracker) : !tracker.isFile()) {
+                        current = false;
+                        if (listings != null) {
+                            listings.added(tracker);
                         }
-                        if (event != null && event.getException() != null) {
-                            writer.write("\n");
-                            event.getException().printStackTrace(new PrintWriter(writer));
+                    } else {
+                        current = chain.equals(readChainId(tracker));
+                    }
+                    if (!current) {
+                        try {
+                            // concurrent builds may both write the tracker, but each rename replaces a complete file
+                            TrackingFiles.write(tracker, render(artifact, event, chainId) + CHAIN_PREFIX + chain + "\n");
+                        } catch (IOException ignored) {
                         }
-                    } catch (IOException ignored) {
                     }
                 }
             }
         }
     }
 
+    /**
+     * Reads the chain ID from the last line of a tracker, {@code null} for trackers written without it.
+     */
+    private static String readChainId(File tracker) {
+        try {
+            List<String> lines = Files.readAllLines(tracker.toPath(), StandardCharsets.UTF_8);
+            for (int i = lines.size() - 1; i >= 0; i--) {
+                if (lines.get(i).startsWith(CHAIN_PREFIX)) {
+                    return lines.get(i).substring(CHAIN_PREFIX.length()).trim();
+                }
+            }
+        } catch (IOException ignored) {
+        }
+        return null;
+    }
+
+    private static String trackerName(DependencyNode topLevel, RepositoryEvent event) {
+        String ext = ".dep";
+        if (event != null && event.getException() != null) {
+            ext = ".miss";
+        }
+        return topLevel.getArtifact().toString().replace(":", "_") + ext;
+    }
+
+    /**
+     * Renders the tracker content: the artifact and the current chain or its ID (and the failure of a missing
+     * artifact).
+     */
+    private static String render(Artifact artifact, RepositoryEvent event, Long chainId) {
+        StringWriter writer = new StringWriter();
+        writer.write(String.format("%s\n", artifact.toString()));
+        if (chainId != null) {
+            writer.write(String.format(" -> chain: %s\n", ChainStore.toString(chainId)));
+        } else {
+            int indent = 0;
+            for (DependencyNode dn : TrackingRepositoryListener.stack) {
+                StringBuilder indent2 = new StringBuilder();
+                for (int i = 0; i < indent; i++) {
+                    indent2.append("  ");
+                }
+                indent++;
+                indent2.append(" -> ");
+                writer.write(String.format("%s%s (context: %s)\n", indent2.toString(), dn.toString(), dn.getRequestContext()));
+            }
+        }
+        if (event != null && event.getException() != null) {
+            writer.write("\n");
+            event.getException().printStackTrace(new PrintWriter(writer));
+        }
+        return writer.toString();
+    }
+
+    /**
+     * ID of the chain (see {@link ChainStore}), computed from the top-level node to the direct requirer unless already
+     * known.
+     */
+    static String chainId(Deque<DependencyNode> stack, Long known) {
+        long id = ChainStore.ROOT;
+        if (known != null) {
+            id = known;
+        } else {
+            for (Iterator<DependencyNode> it = stack.descendingIterator(); it.hasNext(); ) {
+                id = ChainStore.id(id, ChainStore.line(it.next()));
+            }
+        }
+        return ChainStore.toString(id);
+    }
+
 }
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2022 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.tools.maven.tracker;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Forward usage index of a local repository: last-used timestamp of each artifact (by its path relative to the local
+ * repository) found or added by the tracking local repository manager. Paths used during the session are collected in
+ * memory and merged into {@code usage.idx} file in {@link ReverseIndex#INDEX_DIR} when the session ends. Each line of
+ * the file is a tab-separated {@code path, timestamp} record. Updates of the file are serialized across processes with
+ * a lock file.
+ *
+ * The index is used by {@link LocalRepositoryGc} to find artifacts no build has used recently.
+ */
+public class UsageIndex {
+
+    public static final String USAGE_INDEX = "usage.idx";
+
+    private static final String LOCK_SUFFIX = ".lock";
+
+    private final File file;
+    private final Set<String> used = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    public UsageIndex(File localRepository) {
+        this.file = file(localRepository);
+    }
+
+    static File file(File localRepository) {
+        return new File(new File(localRepository, ReverseIndex.INDEX_DIR), USAGE_INDEX);
+    }
+
+    /**
+     * Records usage of an artifact with given path (relative to the local repository).
+     */
+    public void used(String path) {
+        used.add(path);
+    }
+
+    /**
+     * Paths of artifacts used during the session.
+     */
+    public Set<String> getUsed() {
+        return Collections.unmodifiableSet(used);
+    }
+
+    /**
+     * Merges paths used during the session (with given timestamp) into the index file.
+     */
+    public void write(long timestamp) throws IOException {
+        if (used.isEmpty()) {
+            return;
+        }
+        synchronized (UsageIndex.class) {
+            FileChannel lock = lock(file);
+            try {
+                Map<String, Long> entries = read(file);
+                for (String path : used) {
+                    Long previous = entries.get(path);
+                    if (previous == null || previous < timestamp) {
+                        entries.put(path, timestamp);
+                    }
+                }
+                write(entries, file);
+            } finally {
+                lock.close();
+            }
+        }
+    }
+
+    /**
+     * Locks the index file for a read-modify-write update. The lock is released by closing the returned channel.
+     */
+    static FileChannel lock(File file) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.mkdirs() && !dir.isDirectory()) {
+            throw new IOException("Can't create directory " + dir);
+        }
+        return TrackingFiles.lock(new File(dir, file.getName() + LOCK_SUFFIX));
+    }
+
+    /**
+     * Reads the index sorted by path. Missing file is an empty index.
+     */
+    static Map<String, Long> read(File file) throws IOException {
+        Map<String, Long> entries = new TreeMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int tab = line.lastIndexOf('\t');
+                if (tab <= 0) {
+                    continue;
+                }
+                try {
+                    entries.put(line.substring(0, tab), Long.parseLong(line.substring(tab + 1)));
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        } catch (NoSuchFileException ignored) {
+        }
+        return entries;
+    }
+
+    /**
+     * Replaces the index atomically, so a concurrent build never reads a partially written file.
+     */
+    static void write(Map<String, Long> entries, File file) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.mkdirs() && !dir.isDirectory()) {
+            throw new IOException("Can't create directory " + dir);
+        }
+        File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp.toPath(), StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Long> e : entries.entrySet()) {
+                writer.write(e.getKey());
+                writer.write('\t');
+                writer.write(Long.toString(e.getValue()));
+                writer.write('\n');
+            }
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+}
@@ -0,0 +1,168 @@
+package org.eclipse.aether.internal.impl.collect;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.StackTrace;
+
+/**
+ * {@link CollectionEvents} as JFR events (Java 11+). Event types can be enabled and configured in JFR settings by
+ * their names, e.g. {@code org.eclipse.aether.DescriptorRead#threshold=10 ms}.
+ */
+public final class JfrCollectionEvents
+    extends CollectionEvents
+{
+
+    public JfrCollectionEvents()
+    {
+        FlightRecorder.addListener( new FlightRecorderListener()
+        {
+            @Override
+            public void recorderInitialized( FlightRecorder recorder )
+            {
+                update();
+            }
+
+            @Override
+            public void recordingStateChanged( Recording recording )
+            {
+                update();
+            }
+        } );
+        update();
+    }
+
+    @Override
+    protected Object start( int type )
+    {
+        CollectionEvent event;
+        switch ( type )
+        {
+            case COLLECTION:
+                event = new Collection();
+                break;
+            case DESCRIPTOR_READ:
+                event = new DescriptorRead();
+                break;
+            case VERSION_RANGE:
+                event = new VersionRange();
+                break;
+            case GRAPH_TRANSFORMATION:
+                event = new GraphTransformation();
+                break;
+            default:
+                event = new TrackingWrite();
+                break;
+        }
+        if ( !event.isEnabled() )
+        {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    protected void commit( Object event, Object coordinates, String detail )
+    {
+        CollectionEvent e = (CollectionEvent) event;
+        e.end();
+        if ( e.shouldCommit() )
+        {
+            e.coordinates = coordinates == null ? null : coordinates.toString();
+            e.detail = detail;
+            e.commit();
+        }
+    }
+
+    private static void update()
+    {
+        boolean running = false;
+        if ( FlightRecorder.isInitialized() )
+        {
+            for ( Recording recording : FlightRecorder.getFlightRecorder().getRecordings() )
+            {
+                running |= recording.getState() == RecordingState.RUNNING;
+            }
+        }
+        recording = running;
+    }
+
+    @Category( { "Maven", "Dependency Collection" } )
+    @StackTrace( false )
+    abstract static class CollectionEvent
+        extends Event
+    {
+        @Label( "Coordinates" )
+        String coordinates;
+
+        @Label( "Detail" )
+        String detail;
+    }
+
+    @Name( "org.eclipse.aether.Collection" )
+    @Label( "Dependency Collection" )
+    @Description( "collectDependencies() of a root artifact, detail is the request context" )
+    static final class Collection
+        extends CollectionEvent
+    {
+    }
+
+    @Name( "org.eclipse.aether.DescriptorRead" )
+    @Label( "Artifact Descriptor Read" )
+    @Description( "Artifact descriptor read not served from the collection cache" )
+    static final class DescriptorRead
+        extends CollectionEvent
+    {
+    }
+
+    @Name( "org.eclipse.aether.VersionRange" )
+    @Label( "Version Range Resolution" )
+    @Description( "Version (range) resolution not served from the collection cache" )
+    static final class VersionRange
+        extends CollectionEvent
+    {
+    }
+
+    @Name( "org.eclipse.aether.GraphTransformation" )
+    @Label( "Dependency Graph Transformation" )
+    @Description( "Conflict resolution and other transformations of a collected graph" )
+    static final class GraphTransformation
+        extends CollectionEvent
+    {
+    }
+
+    @Name( "org.ops4j.tracking.TrackingWrite" )
+    @Label( "Tracking Write" )
+    @Description( "Tracker or dependency tracker record written by the tracking extension, detail is the kind" )
+    static final class TrackingWrite
+        extends CollectionEvent
+    {
+    }
+
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2022 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.tools.maven.tracker;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import org.eclipse.aether.DefaultRepositoryCache;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositoryEvent;
+import org.eclipse.aether.RepositoryException;
+import org.eclipse.aether.RepositoryListener;
+import org.eclipse.aether.RequestTrace;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.artifact.DefaultArtifactType;
+import org.eclipse.aether.collection.CollectRequest;
+import org.eclipse.aether.graph.DefaultDependencyNode;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.impl.DependencyCollector;
+import org.eclipse.aether.internal.impl.SimpleLocalRepositoryManagerFactory;
+import org.eclipse.aether.internal.impl.collect.CollectionMetrics;
+import org.eclipse.aether.internal.impl.collect.DefaultDependencyCollector;
+import org.eclipse.aether.repository.LocalArtifactRequest;
+import org.eclipse.aether.repository.LocalRepository;
+import org.eclipse.aether.repository.LocalRepositoryManager;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.util.artifact.DefaultArtifactTypeRegistry;
+import org.eclipse.aether.util.graph.manager.ClassicDependencyManager;
+import org.eclipse.aether.util.graph.selector.AndDependencySelector;
+import org.eclipse.aether.util.graph.selector.ExclusionDependencySelector;
+import org.eclipse.aether.util.graph.selector.OptionalDependencySelector;
+import org.eclipse.aether.util.graph.selector.ScopeDependencySelector;
+import org.eclipse.aether.util.graph.transformer.ConflictResolver;
+import org.eclipse.aether.util.graph.transformer.JavaScopeDeriver;
+import org.eclipse.aether.util.graph.transformer.JavaScopeSelector;
+import org.eclipse.aether.util.graph.transformer.NearestVersionSelector;
+import org.eclipse.aether.util.graph.transformer.SimpleOptionalitySelector;
+import org.eclipse.aether.util.graph.traverser.FatArtifactTraverser;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Allocation budgets of the hot paths of tracking, measured with {@code ThreadMXBean.getThreadAllocatedBytes} in
+ * steady state (after warm-up, with trackers of the session already checked) against the
+ * {@link SyntheticRepository.Shape#SMALL small} {@link SyntheticRepository} graph of the benchmarks.
+ *
+ * Collection and lookup budgets are bytes allocated on top of the same work with tracking off (plain
+ * {@link DefaultDependencyCollector}, the delegate local repository manager and no listener), so they don't drift
+ * with allocation of the resolver itself. Budgets have about 1.5x headroom over the measured allocation, so they fail
+ * on regressions (e.g. a tracker built for every lookup again) and not on JIT or JDK differences. Tracking caches
+ * artifact paths, so a collection with tracking allocates about as much as one without it and the collection budget
+ * only covers that noise. When a change legitimately needs more, raise the budget in the same change and say why.
+ */
+public class AllocationBudgetTest {
+
+    /** Bytes per dependency node of a collection with tracking over the collection without it. */
+    private static final long COLLECTION_NODE_BUDGET = 1024;
+
+    /** Bytes per {@code ARTIFACT_RESOLVED} event handled by the listener. */
+    private static final long LISTENER_EVENT_BUDGET = 22 * 1024;
+
+    /** Bytes per local artifact lookup of the tracking local repository manager over the delegate's lookup. */
+    private static final long LOOKUP_BUDGET = 8 * 1024;
+
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 20;
+
+    private SyntheticRepository repository;
+    private File localRepository;
+    private LocalRepositoryManager delegate;
+    private TrackingLocalRepositoryManagerFactory.TrackingLocalRepositoryManager lrm;
+
+    @Before
+    public void setUp() throws Exception {
+        assumeTrue("Thread allocation is not measurable in this JVM", AllocationMeter.isSupported());
+        repository = new SyntheticRepository(SyntheticRepository.Shape.SMALL, 42L);
+        localRepository = Files.createTempDirectory("allocation-budget").toFile();
+        repository.materialize(localRepository);
+        delegate = new SimpleLocalRepositoryManagerFactory().newInstance(new DefaultRepositorySystemSession(),
+                new LocalRepository(localRepository));
+        lrm = new TrackingLocalRepositoryManagerFactory.TrackingLocalRepositoryManager(delegate,
+                new TrackingLocalRepositoryManagerFactory.Config().setReverseIndex(true).setUsageIndex(true));
+        TrackingRepositoryListener.stack.clear();
+        TrackingRepositoryListener.chainIds.clear();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        TrackingRepositoryListener.stack.clear();
+        TrackingRepositoryListener.chainIds.clear();
+        if (lrm != null) {
+            lrm.getReverseIndex().close();
+        }
+        if (localRepository != null) {
+            Files.walkFileTree(localRepository.toPath(), new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    Files.delete(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                    Files.delete(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+    }
+
+    @Test
+    public void processDependencyPerNode() throws RepositoryException {
+        DependencyCollector plain = new DefaultDependencyCollector()
+                .setRemoteRepositoryManager(repository)
+                .setArtifactDescriptorReader(repository)
+                .setVersionRangeResolver(repository);
+        long off = collectPerNode(plain, session(delegate, null));
+        long on = collectPerNode(new TrackingDependencyCollector(repository, repository, repository),
+                session(lrm, new TrackingRepositoryListener()));
+        assertBudget("TrackingDependencyCollector.processDependency per node", on, off, COLLECTION_NODE_BUDGET);
+    }
+
+    @Test
+    public void listenerWritePerEvent() {
+        DefaultRepositorySystemSession session = session(lrm, new TrackingRepositoryListener());
+        TrackingRepositoryListener listener = new TrackingRepositoryListener();
+        Artifact pom = pom();
+        File file = new File(localRepository, delegate.getPathForLocalArtifact(pom));
+        ArtifactRequest request = new ArtifactRequest(pom, repository.getRepositories(), "project");
+        RepositoryEvent event = new RepositoryEvent.Builder(session, RepositoryEvent.EventType.ARTIFACT_RESOLVED)
+                .setTrace(RequestTrace.newChild(null, request)).setArtifact(pom.setFile(file)).setFile(file)
+                .setRepository(session.getLocalRepository()).build();
+        pushChain();
+        for (int i = 0; i < WARMUP; i++) {
+            listener.artifactResolved(event);
+        }
+        long allocated = AllocationMeter.allocated();
+        for (int i = 0; i < ITERATIONS; i++) {
+            listener.artifactResolved(event);
+        }
+        allocated = AllocationMeter.allocated() - allocated;
+        assertBudget("TrackingRepositoryListener.write per event", allocated / ITERATIONS, 0L,
+                LISTENER_EVENT_BUDGET);
+    }
+
+    @Test
+    public void findPerLookup() {
+        LocalArtifactRequest request = new LocalArtifactRequest(pom(), repository.getRepositories(), "project");
+        long off = findPerLookup(delegate, session(delegate, null), request);
+        pushChain();
+        long on = findPerLookup(lrm, session(lrm, new TrackingRepositoryListener()), request);
+        assertBudget("TrackingLocalRepositoryManager.find per lookup", on, off, LOOKUP_BUDGET);
+    }
+
+    /**
+     * Fails when allocation of a path with tracking exceeds allocation of the same path without tracking by more
+     * than the budget.
+     */
+    private static void assertBudget(String path, long bytes, long baseline, long budget) {
+        assertTrue(String.format("%s allocates %d bytes (%d bytes without tracking), over the budget of %d bytes",
+                path, bytes, baseline, budget), bytes - baseline <= budget);
+    }
+
+    private static long findPerLookup(LocalRepositoryManager manager, DefaultRepositorySystemSession session,
+            LocalArtifactRequest request) {
+        for (int i = 0; i < WARMUP * 10; i++) {
+            manager.find(session, request);
+        }
+        long allocated = AllocationMeter.allocated();
+        for (int i = 0; i < ITERATIONS * 10; i++) {
+            manager.find(session, request);
+        }
+        return (AllocationMeter.allocated() - allocated) / (ITERATIONS * 10);
+    }
+
+    private long collectPerNode(DependencyCollector collector, DefaultRepositorySystemSession session)
+            throws RepositoryException {
+        for (int i = 0; i < WARMUP; i++) {
+            collect(collector, session);
+        }
+        long nodes = CollectionMetrics.getNodes();
+        long allocated = AllocationMeter.allocated();
+        for (int i = 0; i < ITERATIONS; i++) {
+            collect(collector, session);
+        }
+        allocated = AllocationMeter.allocated() - allocated;
+        nodes = CollectionMetrics.getNodes() - nodes;
+        assertTrue("No nodes collected", nodes > 0);
+        return allocated / nodes;
+    }
+
+    /**
+     * POM of the first dependency of the root, as its descriptor read resolves it.
+     */
+    private Artifact pom() {
+        Artifact artifact = repository.getRootDependencies().get(0).getArtifact();
+        return new DefaultArtifact(artifact.getGroupId(), artifact.getArtifactId(), "pom", artifact.getVersion());
+    }
+
+    /**
+     * Dependency chain of a top-level artifact, as the collector keeps it while descending.
+     */
+    private void pushChain() {
+        for (Dependency dependency : repository.getRootDependencies().subList(0, 3)) {
+            TrackingRepositoryListener.stack.push(new DefaultDependencyNode(dependency));
+        }
+    }
+
+    private void collect(DependencyCollector collector, DefaultRepositorySystemSession session)
+            throws RepositoryException {
+        CollectRequest request = new CollectRequest();
+        request.setRootArtifact(new DefaultArtifact("org.synthetic", "project", "jar", "1.0"));
+        request.setDependencies(repository.getRootDependencies());
+        request.setManagedDependencies(repository.getManagedDependencies());
+        request.setRepositories(repository.getRepositories());
+        request.setRequestContext("project");
+        request.setTrace(RequestTrace.newChild(null, request));
+        collector.collectDependencies(session, request);
+    }
+
+    private static DefaultRepositorySystemSession session(LocalRepositoryManager manager,
+            RepositoryListener listener) {
+        DefaultRepositorySystemSession session = new DefaultRepositorySystemSession();
+        session.setCache(new DefaultRepositoryCache());
+        session.setDependencySelector(new AndDependencySelector(new ScopeDependencySelector("test", "provided"),
+                new OptionalDependencySelector(), new ExclusionDependencySelector()));
+        session.setDependencyManager(new ClassicDependencyManager());
+        session.setDependencyTraverser(new FatArtifactTraverser());
+        session.setDependencyGraphTransformer(new ConflictResolver(new NearestVersionSelector(),
+                new JavaScopeSelector(), new SimpleOptionalitySelector(), new JavaScopeDeriver()));
+        DefaultArtifactTypeRegistry types = new DefaultArtifactTypeRegistry();
+        types.add(new DefaultArtifactType("pom"));
+        types.add(new DefaultArtifactType("jar", "jar", "", "java"));
+        session.setArtifactTypeRegistry(types);
+        session.setLocalRepositoryManager(manager);
+        session.setRepositoryListener(listener);
+        return session;
+    }
+
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2022 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.tools.maven.tracker;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.eclipse.aether.RepositoryEvent;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.RequestTrace;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.impl.ArtifactDescriptorReader;
+import org.eclipse.aether.impl.RemoteRepositoryManager;
+import org.eclipse.aether.impl.VersionRangeResolver;
+import org.eclipse.aether.repository.LocalArtifactRequest;
+import org.eclipse.aether.repository.LocalArtifactResult;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.repository.RepositoryPolicy;
+import org.eclipse.aether.resolution.ArtifactDescriptorRequest;
+import org.eclipse.aether.resolution.ArtifactDescriptorResult;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.VersionRangeRequest;
+import org.eclipse.aether.resolution.VersionRangeResolutionException;
+import org.eclipse.aether.resolution.VersionRangeResult;
+import org.eclipse.aether.util.version.GenericVersionScheme;
+import org.eclipse.aether.version.InvalidVersionSpecificationException;
+import org.eclipse.aether.version.Version;
+import org.eclipse.aether.version.VersionConstraint;
+import org.eclipse.aether.version.VersionScheme;
+
+/**
+ * Deterministic synthetic dependency graph served through in-memory {@link ArtifactDescriptorReader},
+ * {@link VersionRangeResolver} and {@link RemoteRepositoryManager} stand-ins.
+ *
+ * The graph has {@code levels} levels of {@code width} artifacts. Each artifact depends on {@code fanOut} artifacts
+ * of the next level, a fraction of them declared with a version range, with back edges (cycles) to previous levels and
+ * relocations. The root descriptor manages a BOM of {@code bomSize} artifacts. When {@link #materialize(File)} was
+ * called, descriptor reads look up the POMs in a local repository and report them as resolved, as the real
+ * descriptor reader does, so the tracking extension sees the same calls and events as in a build.
+ */
+public class SyntheticRepository implements ArtifactDescriptorReader, VersionRangeResolver, RemoteRepositoryManager {
+
+    /**
+     * Predefined graph shapes: levels, width, fan-out, BOM size, range ratio, cycle ratio, relocation ratio.
+     */
+    public enum Shape {
+        /** Small graph for tests, collected in milliseconds. */
+        SMALL(4, 20, 4, 0, 0.0, 0.0, 0.0),
+        /** Long chains, e.g. plugins depending on a deep stack of frameworks. */
+        DEEP(40, 6, 2, 0, 0.0, 0.0, 0.0),
+        /** Few levels with many direct and transitive dependencies. */
+        WIDE(3, 300, 30, 0, 0.0, 0.0, 0.0),
+        /** Big imported BOM managing most of the graph. */
+        BOM(6, 120, 10, 3000, 0.0, 0.0, 0.0),
+        /** Version ranges, cycles and relocations mixed into a medium graph. */
+        MIXED(8, 80, 8, 200, 0.1, 0.02, 0.02),
+        /** About 10k distinct artifacts in the collected graph. */
+        LARGE(14, 1000, 4, 0, 0.0, 0.0, 0.0);
+
+        final int levels;
+        final int width;
+        final int fanOut;
+        final int bomSize;
+        final double ranges;
+        final double cycles;
+        final double relocations;
+
+        Shape(int levels, int width, int fanOut, int bomSize, double ranges, double cycles, double relocations) {
+            this.levels = levels;
+            this.width = width;
+            this.fanOut = fanOut;
+            this.bomSize = bomSize;
+            this.ranges = ranges;
+            this.cycles = cycles;
+            this.relocations = relocations;
+        }
+    }
+
+    private static final int VERSIONS = 5;
+
+    private final VersionScheme scheme = new GenericVersionScheme();
+
+    /** Descriptors by {@code groupId:artifactId} - all versions of an artifact share the descriptor. */
+    private final Map<String, Descriptor> descriptors = new HashMap<>();
+
+    private final List<Dependency> rootDependencies = new ArrayList<>();
+    private final List<Dependency> bom = new ArrayList<>();
+    private final List<RemoteRepository> repositories;
+
+    private File localRepository;
+
+    public SyntheticRepository(Shape shape, long seed) {
+        this.repositories = Collections.singletonList(
+                new RemoteRepository.Builder("central", "default", "https://repo.maven.apache.org/maven2/").build());
+        Random random = new Random(seed);
+        Artifact[][] levels = new Artifact[shape.levels][shape.width];
+        for (int l = 0; l < shape.levels; l++) {
+            for (int w = 0; w < shape.width; w++) {
+                levels[l][w] = new DefaultArtifact("org.synthetic.l" + l, "artifact-" + l + "-" + w, "jar",
+                        "1." + random.nextInt(VERSIONS));
+            }
+        }
+        for (int l = 0; l < shape.levels; l++) {
+            for (int w = 0; w < shape.width; w++) {
+                Descriptor descriptor = new Descriptor();
+                if (l + 1 < shape.levels) {
+                    for (int f = 0; f < shape.fanOut; f++) {
+                        Artifact child = levels[l + 1][random.nextInt(shape.width)];
+                        if (random.nextDouble() < shape.ranges) {
+                            child = child.setVersion("[1.0,1." + (VERSIONS - 1) + "]");
+                        }
+                        descriptor.dependencies.add(new Dependency(child, "compile"));
+                    }
+                }
+                if (l > 0 && random.nextDouble() < shape.cycles) {
+                    descriptor.dependencies.add(new Dependency(levels[random.nextInt(l)][random.nextInt(shape.width)],
+                            "compile"));
+                }
+                if (l > 0 && random.nextDouble() < shape.relocations) {
+                    Artifact a = levels[l][w];
+                    descriptor.relocation = new DefaultArtifact(a.getGroupId() + ".relocated", a.getArtifactId(),
+                            "jar", a.getVersion());
+                    descriptors.put(key(descriptor.relocation), descriptor);
+                }
+                descriptors.put(key(levels[l][w]), descriptor);
+            }
+        }
+        for (int w = 0; w < shape.width && w < shape.fanOut * 2; w++) {
+            rootDependencies.add(new Dependency(levels[0][w], "compile"));
+        }
+        for (int b = 0; b < shape.bomSize; b++) {
+            Artifact managed = levels[random.nextInt(shape.levels)][random.nextInt(shape.width)];
+            bom.add(new Dependency(managed.setVersion("1." + random.nextInt(VERSIONS)), "compile"));
+        }
+    }
+
+    /**
+     * Dependencies of the (project) root.
+     */
+    public List<Dependency> getRootDependencies() {
+        return rootDependencies;
+    }
+
+    /**
+     * Managed dependencies of the root - the imported BOM.
+     */
+    public List<Dependency> getManagedDependencies() {
+        return bom;
+    }
+
+    public List<RemoteRepository> getRepositories() {
+        return repositories;
+    }
+
+    /**
+     * Writes (empty) POMs of all artifact versions into given local repository. Later descriptor reads find them
+     * through the session's local repository manager.
+     */
+    public void materialize(File localRepository) throws IOException {
+        this.localRepository = localRepository;
+        for (String key : descriptors.keySet()) {
+            String[] ga = key.split(":");
+            for (int v = 0; v < VERSIONS; v++) {
+                String version = "1." + v;
+                File dir = new File(localRepository, ga[0].replace('.', '/') + "/" + ga[1] + "/" + version);
+                if (!dir.mkdirs() && !dir.isDirectory()) {
+                    throw new IOException("Can't create " + dir);
+                }
+                Files.write(new File(dir, ga[1] + "-" + version + ".pom").toPath(), new byte[0]);
+            }
+        }
+    }
+
+    @Override
+    public ArtifactDescriptorResult readArtifactDescriptor(RepositorySystemSession session,
+            ArtifactDescriptorRequest request) {
+        Artifact artifact = request.getArtifact();
+        ArtifactDescriptorResult result = new ArtifactDescriptorResult(request);
+        Descriptor descriptor = descriptors.get(key(artifact));
+        if (localRepository != null) {
+            resolvePom(session, request, artifact);
+        }
+        result.setArtifact(artifact);
+        result.setRepositories(repositories);
+        if (descriptor == null) {
+            return result;
+        }
+        if (descriptor.relocation != null && !key(descriptor.relocation).equals(key(artifact))) {
+            result.addRelocation(artifact);
+            result.setArtifact(descriptor.relocation.setVersion(artifact.getVersion()));
+            return result;
+        }
+        result.setDependencies(descriptor.dependencies);
+        return result;
+    }
+
+    /**
+     * Looks up the POM in the local repository and reports it as resolved, as artifact resolution does.
+     */
+    private void resolvePom(RepositorySystemSession session, ArtifactDescriptorRequest request, Artifact artifact) {
+        Artifact pom = new DefaultArtifact(artifact.getGroupId(), artifact.getArtifactId(), "pom",
+                artifact.getVersion());
+        ArtifactRequest artifactRequest = new ArtifactRequest(pom, request.getRepositories(),
+                request.getRequestContext());
+        RequestTrace trace = RequestTrace.newChild(request.getTrace(), artifactRequest);
+        LocalArtifactResult local = session.getLocalRepositoryManager().find(session,
+                new LocalArtifactRequest(pom, request.getRepositories(), request.getRequestContext()));
+        if (local.getFile() != null && session.getRepositoryListener() != null) {
+            session.getRepositoryListener().artifactResolved(
+                    new RepositoryEvent.Builder(session, RepositoryEvent.EventType.ARTIFACT_RESOLVED)
+                            .setTrace(trace).setArtifact(pom.setFile(local.getFile())).setFile(local.getFile())
+                            .setRepository(session.getLocalRepository()).build());
+        }
+    }
+
+    @Override
+    public VersionRangeResult resolveVersionRange(RepositorySystemSession session, VersionRangeRequest request)
+            throws VersionRangeResolutionException {
+        VersionRangeResult result = new VersionRangeResult(request);
+        try {
+            VersionConstraint constraint = scheme.parseVersionConstraint(request.getArtifact().getVersion());
+            result.setVersionConstraint(constraint);
+            if (constraint.getRange() == null) {
+                result.addVersion(constraint.getVersion());
+            } else {
+                for (int v = 0; v < VERSIONS; v++) {
+                    Version version = scheme.parseVersion("1." + v);
+                    if (constraint.containsVersion(version)) {
+                        result.addVersion(version);
+                    }
+                }
+            }
+        } catch (InvalidVersionSpecificationException e) {
+            result.addException(e);
+            throw new VersionRangeResolutionException(result);
+        }
+        return result;
+    }
+
+    @Override
+    public List<RemoteRepository> aggregateRepositories(RepositorySystemSession session,
+            List<RemoteRepository> dominantRepositories, List<RemoteRepository> recessiveRepositories,
+            boolean recessiveIsRaw) {
+        return dominantRepositories;
+    }
+
+    @Override
+    public RepositoryPolicy getPolicy(RepositorySystemSession session, RemoteRepository repository, boolean releases,
+            boolean snapshots) {
+        return new RepositoryPolicy();
+    }
+
+    private static String key(Artifact artifact) {
+        return artifact.getGroupId() + ":" + artifact.getArtifactId();
+    }
+
+    private static final class Descriptor {
+        final List<Dependency> dependencies = new ArrayList<>();
+        Artifact relocation;
+    }
+
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2022 OPS4J.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.tools.maven.tracker;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * {@link TrackingFiles#append(File, String)} from several JVMs, each with several threads, appending to the same
+ * tracker file - as builds sharing a local repository do. Records are larger than a pipe buffer and a disk block, so
+ * interleaved writes would split them.
+ */
+public class TrackingFilesTest {
+
+    private static final int PROCESSES = 3;
+    private static final int THREADS = 4;
+    private static final int RECORDS = 200;
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("tracking-files").toFile();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (dir != null) {
+            for (File file : dir.listFiles()) {
+                Files.delete(file.toPath());
+            }
+            Files.delete(dir.toPath());
+        }
+    }
+
+    @Test
+    public void concurrentAppendsFromProcessesAndThreads() throws Exception {
+        File tracker = new File(dir, "_dependency-tracker.txt");
+        String java = new File(new File(System.getProperty("java.home"), "bin"), "java").getPath();
+        List<Process> processes = new ArrayList<>();
+        for (int p = 0; p < PROCESSES; p++) {
+            processes.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    TrackingFilesTest.class.getName(), tracker.getPath(), "p" + p).inheritIO().start());
+        }
+        // this JVM appends too, through another path of the same file
+        append(new File(new File(dir, "."), tracker.getName()), "p" + PROCESSES);
+        for (Process process : processes) {
+            if (!process.waitFor(2, TimeUnit.MINUTES)) {
+                process.destroyForcibly();
+                fail("Appending process didn't finish");
+            }
+            assertEquals("Appending process failed", 0, process.exitValue());
+        }
+
+        int[][][] seen = new int[PROCESSES + 1][THREADS][RECORDS];
+        int lines = 0;
+        for (String line : Files.readAllLines(tracker.toPath(), StandardCharsets.UTF_8)) {
+            String[] fields = line.split(":");
+            assertEquals("Interleaved record: " + abbreviate(line), 4, fields.length);
+            int p = Integer.parseInt(fields[0].substring(1));
+            int t = Integer.parseInt(fields[1].substring(1));
+            int r = Integer.parseInt(fields[2]);
+            assertEquals("Interleaved record: " + abbreviate(line), payload(p, t, r), fields[3]);
+            seen[p][t][r]++;
+            lines++;
+        }
+        assertEquals("Lost records", (PROCESSES + 1) * THREADS * RECORDS, lines);
+        for (int p = 0; p <= PROCESSES; p++) {
+            for (int t = 0; t < THREADS; t++) {
+                for (int r = 0; r < RECORDS; r++) {
+                    assertEquals(String.format("Record p%d:t%d:%d", p, t, r), 1, seen[p][t][r]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Entry point of the forked appending JVMs: {@code <file> <process name>}.
+     */
+    public static void main(String[] args) throws Exception {
+        append(new File(args[0]), args[1]);
+    }
+
+    /**
+     * Appends {@link #RECORDS} records from each of {@link #THREADS} threads.
+     */
+    private static void append(final File file, final String process) throws Exception {
+        final int p = Integer.parseInt(process.substring(1));
+        final List<Throwable> failures = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final int thread = t;
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int r = 0; r < RECORDS; r++) {
+                            TrackingFiles.append(file, process + ":t" + thread + ":" + r + ":"
+                                    + payload(p, thread, r) + "\n");
+                        }
+                    } catch (Throwable e) {
+                        synchronized (failures) {
+                            failures.add(e);
+                        }
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (!failures.isEmpty()) {
+            throw new AssertionError("Append failed", failures.get(0));
+        }
+    }
+
+    /**
+     * Content of a record, 5-10 KiB depending on the record.
+     */
+    private static String payload(int process, int thread, int record) {
+        int length = 5 * 1024 + (process * 7919 + thread * 104729 + record * 31) % (5 * 1024);
+        StringBuilder sb = new StringBuilder(length);
+        char c = (char) ('a' + (process * THREADS + thread) % 26);
+        for (int i = 0; i < length; i++) {
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private static String abbreviate(String line) {
+        return line.length() > 40 ? line.substring(0, 40) + "..." : line;
+    }
+
+}